@@ -2,8 +2,10 @@ package com.ju.e_commerce_project;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ECommerceProjectApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,17 @@
+package com.ju.e_commerce_project.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record CacheStats(
+        int size,
+        int maxSize,
+        long hits,
+        long misses,
+        long evictions
+) {
+    @JsonProperty
+    public double hitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,83 @@
+package com.ju.e_commerce_project.cache;
+
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of category listing pages. Writes invalidate the affected categories once their
+ * transaction commits; a page loaded while an invalidation happened is not cached, so a slow reader
+ * cannot put back data that predates the write.
+ */
+@Component
+public class ProductListingCache {
+
+    private final BoundedCache<ListingKey, ProductPageResponse> pages;
+    private final long ttlMillis;
+    private final Object invalidationLock = new Object();
+    private long epoch;
+
+    public ProductListingCache(
+            @Value("${catalog.listing-cache.size:1000}") int size,
+            @Value("${catalog.listing-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.pages = new BoundedCache<>(size);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public ProductPageResponse get(ListingKey key) {
+        return pages.get(key);
+    }
+
+    // Take the epoch before querying and hand it back to put()
+    public long epoch() {
+        synchronized (invalidationLock) {
+            return epoch;
+        }
+    }
+
+    public void put(ListingKey key, ProductPageResponse page, long loadedAtEpoch) {
+        synchronized (invalidationLock) {
+            if (loadedAtEpoch == epoch) {
+                pages.put(key, page, System.currentTimeMillis() + ttlMillis);
+            }
+        }
+    }
+
+    public void invalidateCategories(Collection<Long> categoryIds) {
+        Set<Long> affected = categoryIds.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+        if (affected.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(affected);
+                }
+            });
+        } else {
+            evict(affected);
+        }
+    }
+
+    public CacheStats stats() {
+        return pages.stats();
+    }
+
+    private void evict(Set<Long> categoryIds) {
+        synchronized (invalidationLock) {
+            epoch++;
+            pages.invalidateIf(key -> categoryIds.contains(key.categoryId()));
+        }
+    }
+
+    public record ListingKey(Long categoryId, Long afterId, int size, boolean includeDescription) {}
+}
@@ -0,0 +1,66 @@
+package com.ju.e_commerce_project.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Caches the data behind {@link UserDetails} per username. A fresh {@link User} is built on every hit
+ * because Spring Security erases the password of the principal it authenticated.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final BoundedCache<String, CachedUser> users;
+    private final long ttlMillis;
+
+    public UserDetailsCache(
+            @Value("${security.user-details-cache.size:10000}") int size,
+            @Value("${security.user-details-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.users = new BoundedCache<>(size);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public UserDetails get(String username) {
+        CachedUser cachedUser = users.get(username);
+        if (cachedUser == null) {
+            return null;
+        }
+        return new User(cachedUser.username(), cachedUser.password(), cachedUser.authorities());
+    }
+
+    public void put(UserDetails userDetails) {
+        users.put(
+                userDetails.getUsername(),
+                new CachedUser(userDetails.getUsername(), userDetails.getPassword(), List.copyOf(userDetails.getAuthorities())),
+                System.currentTimeMillis() + ttlMillis
+        );
+    }
+
+    // Evicts immediately and, inside a transaction, once more after commit so a concurrent load cannot re-cache stale data
+    public void invalidate(String username) {
+        users.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    users.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public CacheStats stats() {
+        return users.stats();
+    }
+
+    private record CachedUser(String username, String password, Collection<? extends GrantedAuthority> authorities) {}
+}
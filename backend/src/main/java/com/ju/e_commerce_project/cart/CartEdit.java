@@ -0,0 +1,70 @@
+package com.ju.e_commerce_project.cart;
+
+import com.ju.e_commerce_project.exception.ResourceNotFoundException;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Changes to one in-memory cart, staged until the edit completes. An edit that throws leaves the
+ * cart as it was, so the operations of one request apply together or not at all.
+ */
+public final class CartEdit {
+
+    private final Map<Long, CartLine> lines;
+    private final Map<Long, Long> lineIdsByProduct;
+    private final LongSupplier newLineId;
+    private final Map<Long, CartLine> changes = new LinkedHashMap<>();
+
+    CartEdit(Map<Long, CartLine> lines, Map<Long, Long> lineIdsByProduct, LongSupplier newLineId) {
+        this.lines = lines;
+        this.lineIdsByProduct = lineIdsByProduct;
+        this.newLineId = newLineId;
+    }
+
+    // A product removed earlier in the same edit gets its line back
+    public void add(long productId, int quantity) {
+        CartLine line = findByProduct(productId);
+        if (line == null) {
+            line = new CartLine(newLineId.getAsLong(), productId, 0);
+        }
+        changes.put(line.id(), line.withQuantity(line.quantity() + quantity));
+    }
+
+    // A quantity of 0 removes the line
+    public void set(long lineId, int quantity) {
+        CartLine line = current(lineId);
+        if (line == null || line.quantity() == 0) {
+            throw new ResourceNotFoundException("Cart item not found with id: " + lineId);
+        }
+        changes.put(lineId, line.withQuantity(quantity));
+    }
+
+    public void clear() {
+        for (CartLine line : lines.values()) {
+            changes.putIfAbsent(line.id(), line.withQuantity(0));
+        }
+        changes.replaceAll((id, line) -> line.withQuantity(0));
+    }
+
+    Collection<CartLine> changes() {
+        return changes.values();
+    }
+
+    private CartLine current(long lineId) {
+        CartLine changed = changes.get(lineId);
+        return changed != null ? changed : lines.get(lineId);
+    }
+
+    private CartLine findByProduct(long productId) {
+        for (CartLine line : changes.values()) {
+            if (line.productId() == productId) {
+                return line;
+            }
+        }
+        Long lineId = lineIdsByProduct.get(productId);
+        return lineId == null ? null : lines.get(lineId);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ju.e_commerce_project.cart;
+
+// One cart line as the write-behind store holds it; a quantity of 0 marks a removed line
+public record CartLine(long id, long productId, int quantity) {
+
+    public CartLine withQuantity(int quantity) {
+        return new CartLine(id, productId, quantity);
+    }
+}
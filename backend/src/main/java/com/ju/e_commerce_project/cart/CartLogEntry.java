@@ -0,0 +1,10 @@
+package com.ju.e_commerce_project.cart;
+
+import java.util.List;
+
+// One change to one cart: the lines it touched, as they were afterwards, and the version it produced
+record CartLogEntry(
+        long cartId,
+        long version,
+        List<CartLine> lines
+) {}
@@ -0,0 +1,207 @@
+package com.ju.e_commerce_project.cart;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Append-only log of cart changes, one JSON object per line, split into numbered segment files.
+ * Opening the log starts a new segment and leaves the older ones to be recovered. A flush rotates
+ * to a new segment before it collects the dirty carts and deletes the older segments once those
+ * carts are written; a cart that cannot be written has its changes appended to the new segment
+ * instead, so the log only holds changes the database may not have yet.
+ * <p>
+ * With sync on, {@link #sync(long)} forces the log to disk before a change is acknowledged, so
+ * changes survive a power loss or an operating system crash. Callers waiting at the same time share
+ * one force (group commit). With sync off, appends reach the operating system only, which covers a
+ * crash of the process but not of the machine.
+ */
+final class CartMutationLog implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartMutationLog.class);
+    private static final String PREFIX = "cart-changes-";
+    private static final String SUFFIX = ".ndjson";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+    private final boolean sync;
+    private final Object forceLock = new Object();
+    private long segment;
+    private FileChannel channel;
+    // Bytes appended over all segments, and how many of them are known to be on disk
+    private long written;
+    private long forced;
+
+    CartMutationLog(Path directory, ObjectMapper objectMapper, boolean sync) {
+        this.directory = directory;
+        this.objectMapper = objectMapper;
+        this.sync = sync;
+        try {
+            Files.createDirectories(directory);
+            TreeMap<Long, Path> existing = segments();
+            segment = existing.isEmpty() ? 0 : existing.lastKey();
+            open(segment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the cart log in " + directory, e);
+        }
+    }
+
+    // Written to the operating system before it returns; returns the position to pass to sync
+    synchronized long append(CartLogEntry entry) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(entry);
+            ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            while (line.hasRemaining()) {
+                written += channel.write(line);
+            }
+            return written;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to the cart log", e);
+        }
+    }
+
+    // With sync, returns once everything appended up to the position is on disk; whoever forces
+    // first covers the appends of everyone waiting behind it
+    void sync(long position) {
+        if (!sync) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (forced >= position) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = written;
+                current = channel;
+            }
+            try {
+                current.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot force the cart log to disk", e);
+            }
+            forced = target;
+        }
+    }
+
+    // Starts a new segment and returns the number of the last one that is now closed
+    long rotate() {
+        synchronized (forceLock) {
+            synchronized (this) {
+                try {
+                    // Appends to the closed segment are acknowledged only once forced
+                    if (sync) {
+                        channel.force(false);
+                        forced = written;
+                    }
+                    channel.close();
+                    open(segment + 1);
+                    return segment - 1;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Cannot rotate the cart log", e);
+                }
+            }
+        }
+    }
+
+    synchronized long lastClosedSegment() {
+        return segment - 1;
+    }
+
+    // Entries in the order they were appended; a line cut short by a crash is skipped
+    List<CartLogEntry> readThrough(long lastSegment) {
+        List<CartLogEntry> entries = new ArrayList<>();
+        try {
+            for (Path file : segments().headMap(lastSegment, true).values()) {
+                try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            entries.add(objectMapper.readValue(line, CartLogEntry.class));
+                        } catch (JsonProcessingException e) {
+                            logger.warn("Skipping an unreadable entry in {}", file.getFileName());
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the cart log in " + directory, e);
+        }
+        return entries;
+    }
+
+    // Entries carried forward into the current segment reach the disk before the ones they replace are deleted
+    void deleteThrough(long lastSegment) {
+        sync(currentPosition());
+        synchronized (this) {
+            delete(lastSegment);
+        }
+    }
+
+    private synchronized long currentPosition() {
+        return written;
+    }
+
+    private void delete(long lastSegment) {
+        try {
+            for (Path file : segments().headMap(lastSegment, true).values()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot delete written cart log segments in " + directory, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (forceLock) {
+            synchronized (this) {
+                if (sync) {
+                    channel.force(false);
+                }
+                channel.close();
+            }
+        }
+    }
+
+    private void open(long number) throws IOException {
+        channel = FileChannel.open(directory.resolve(PREFIX + number + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment = number;
+    }
+
+    private TreeMap<Long, Path> segments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    // Not a segment this log wrote
+                }
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ju.e_commerce_project.cart;
+
+import java.util.List;
+
+// A cart as it was right after a read or a change, lines in id order
+public record CartSnapshot(
+        long cartId,
+        long userId,
+        long version,
+        List<CartLine> lines
+) {}
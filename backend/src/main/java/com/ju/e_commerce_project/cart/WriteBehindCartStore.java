@@ -0,0 +1,591 @@
+package com.ju.e_commerce_project.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ju.e_commerce_project.model.Cart;
+import com.ju.e_commerce_project.model.CartItem;
+import com.ju.e_commerce_project.repository.CartItemRepository;
+import com.ju.e_commerce_project.repository.CartRepository;
+import com.ju.e_commerce_project.repository.CartUpsertRepository;
+import com.ju.e_commerce_project.repository.IdAllocator;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Holds active carts in memory and writes them to {@code carts} and {@code cart_items} behind the
+ * requests that change them. Enabled with {@code cart.store=write-behind}.
+ * <p>
+ * Carts live in a fixed number of shards, each guarded by its own lock, keyed by username. A cart is
+ * loaded from the database on first use; every change raises its version, is appended to the
+ * {@link CartMutationLog} and marks the cart dirty. Dirty carts are written in one transaction every
+ * {@code cart.write-behind.flush-interval-ms}, when a customer checks out and on shutdown. Each
+ * cart has a write lock, held while its changes are being written, so a checkout waits only for a
+ * write of its own cart; the timed flush skips a cart a checkout is writing and carries its changes,
+ * including those of that write, into the new log segment until the write commits. On startup, changes left in the log by a crash
+ * are replayed onto the database before any request is served. Clean carts idle for
+ * {@code cart.write-behind.idle-eviction-ms} are dropped.
+ * <p>
+ * The store assumes it is the only writer of the carts it holds, so it suits a single instance (or
+ * requests routed by customer). Call it outside a transaction: it opens short ones of its own to
+ * load a cart and to draw ids for new lines, so no connection is held while a change waits for the
+ * log to be forced.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store", havingValue = "write-behind")
+public class WriteBehindCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CartUpsertRepository cartUpsertRepository;
+    private final IdAllocator idAllocator;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate loadTemplate;
+    private final CartMutationLog log;
+    private final Shard[] shards;
+    private final long idleEvictionMillis;
+
+    public WriteBehindCartStore(
+            CartRepository cartRepository,
+            CartItemRepository cartItemRepository,
+            CartUpsertRepository cartUpsertRepository,
+            IdAllocator idAllocator,
+            ProductRepository productRepository,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${cart.write-behind.shards:16}") int shardCount,
+            @Value("${cart.write-behind.log-dir:data/cart-log}") String logDirectory,
+            @Value("${cart.write-behind.log-sync:true}") boolean logSync,
+            @Value("${cart.write-behind.idle-eviction-ms:600000}") long idleEvictionMillis
+    ) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.cartUpsertRepository = cartUpsertRepository;
+        this.idAllocator = idAllocator;
+        this.productRepository = productRepository;
+        // Flushes commit on their own, whatever transaction the caller is in
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.log = new CartMutationLog(Path.of(logDirectory), objectMapper, logSync);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        this.idleEvictionMillis = idleEvictionMillis;
+    }
+
+    /**
+     * Replays what the previous run logged but did not write, oldest first, one cart at a time. A
+     * cart that still cannot be written has its entries appended to the new segment for the next
+     * start, so it holds back neither the other carts nor startup.
+     */
+    @PostConstruct
+    public synchronized void recover() {
+        long lastSegment = log.lastClosedSegment();
+        List<CartLogEntry> entries = log.readThrough(lastSegment);
+        Map<Long, List<CartLogEntry>> entriesByCart = new LinkedHashMap<>();
+        for (CartLogEntry entry : entries) {
+            entriesByCart.computeIfAbsent(entry.cartId(), id -> new ArrayList<>()).add(entry);
+        }
+        int recovered = 0;
+        for (Map.Entry<Long, List<CartLogEntry>> cartEntries : entriesByCart.entrySet()) {
+            try {
+                MemoryCart cart = transactionTemplate.execute(status -> replay(cartEntries.getKey(), cartEntries.getValue()));
+                if (cart != null) {
+                    writeAlone(cart.takeWrite());
+                    recovered++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Cannot recover cart {}; keeping its changes in the log", cartEntries.getKey(), e);
+                cartEntries.getValue().forEach(log::append);
+            }
+        }
+        if (!entries.isEmpty()) {
+            logger.info("Recovered {} cart changes into {} carts", entries.size(), recovered);
+        }
+        log.deleteThrough(lastSegment);
+    }
+
+    public CartSnapshot read(String username, Supplier<Cart> cartSource) {
+        Shard shard = shard(username);
+        while (true) {
+            MemoryCart cart = cart(shard, username, cartSource);
+            synchronized (shard) {
+                if (shard.carts.get(username) == cart) {
+                    cart.lastUsed = System.currentTimeMillis();
+                    return cart.snapshot();
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the change to the customer's cart, loading it through {@code cartSource} when it is not
+     * held yet, and returns the cart as it is afterwards. The change may add at most {@code newLines}
+     * lines; their ids are drawn before the shard lock is taken, so a trip to the id sequence never
+     * holds up the other carts of the shard, and those the change does not use are skipped. The change
+     * is logged before the cart is updated; if it throws, nothing is. With
+     * {@code cart.write-behind.log-sync} the log is forced to disk before this returns, outside the
+     * shard lock so that changes waiting on one force share it.
+     */
+    public CartSnapshot update(String username, Supplier<Cart> cartSource, int newLines, Consumer<CartEdit> change) {
+        Shard shard = shard(username);
+        long[] lineIds = newLines == 0 ? new long[0] : loadTemplate.execute(status -> nextLineIds(newLines));
+        while (true) {
+            MemoryCart cart = cart(shard, username, cartSource);
+            long logPosition;
+            CartSnapshot snapshot;
+            synchronized (shard) {
+                // Evicted while it was being loaded
+                if (shard.carts.get(username) != cart) {
+                    continue;
+                }
+                PrimitiveIterator.OfLong unusedLineIds = Arrays.stream(lineIds).iterator();
+                CartEdit edit = new CartEdit(cart.lines, cart.lineIdsByProduct, unusedLineIds::nextLong);
+                change.accept(edit);
+
+                long version = cart.version + 1;
+                logPosition = log.append(new CartLogEntry(cart.cartId, version, List.copyOf(edit.changes())));
+                cart.apply(edit.changes());
+                cart.version = version;
+                cart.lastUsed = System.currentTimeMillis();
+                shard.dirty.add(cart);
+                snapshot = cart.snapshot();
+            }
+            log.sync(logPosition);
+            return snapshot;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        // Everything in the closed segments is in the carts collected below
+        long lastSegment = log.rotate();
+        List<PendingWrite> writes = new ArrayList<>();
+        try {
+            for (Shard shard : shards) {
+                synchronized (shard) {
+                    for (Iterator<MemoryCart> dirty = shard.dirty.iterator(); dirty.hasNext(); ) {
+                        MemoryCart cart = dirty.next();
+                        if (cart.writeLock.tryLock()) {
+                            writes.add(cart.takeWrite());
+                            dirty.remove();
+                        } else {
+                            // A checkout is writing it; its changes, that write's included, move to the new segment
+                            carryForward(cart);
+                        }
+                    }
+                }
+            }
+
+            if (!writes.isEmpty()) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(writes));
+                } catch (RuntimeException e) {
+                    writeEach(writes);
+                }
+            }
+            // Whatever was not written has been appended to the new segment again
+            log.deleteThrough(lastSegment);
+        } finally {
+            for (PendingWrite write : writes) {
+                write.cart().writeLock.unlock();
+            }
+        }
+        evictIdle();
+    }
+
+    // Checkout reads the cart from the database, so its pending changes are written first
+    public void flush(String username) {
+        Shard shard = shard(username);
+        MemoryCart cart;
+        synchronized (shard) {
+            cart = shard.carts.get(username);
+        }
+        if (cart == null) {
+            return;
+        }
+        // Waits for a write of this cart that is already under way, never for other carts
+        cart.writeLock.lock();
+        try {
+            PendingWrite write;
+            synchronized (shard) {
+                if (!shard.dirty.contains(cart)) {
+                    return;
+                }
+                // The cart stays dirty until the write commits, so a timed flush meanwhile carries it forward
+                write = cart.takeWrite();
+                cart.writing = write;
+            }
+            try {
+                writeAlone(write);
+            } catch (RuntimeException e) {
+                restore(write);
+                throw e;
+            }
+            synchronized (shard) {
+                cart.writing = null;
+                if (cart.pendingLines().isEmpty()) {
+                    shard.dirty.remove(cart);
+                }
+            }
+        } finally {
+            cart.writeLock.unlock();
+        }
+    }
+
+    // Drops the customer's cart once the surrounding transaction commits; the next request loads it again
+    public void evict(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(username);
+                }
+            });
+        } else {
+            remove(username);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        flush();
+        log.close();
+    }
+
+    private MemoryCart cart(Shard shard, String username, Supplier<Cart> cartSource) {
+        while (true) {
+            long generation;
+            synchronized (shard) {
+                MemoryCart cart = shard.carts.get(username);
+                if (cart != null) {
+                    return cart;
+                }
+                generation = shard.generation;
+            }
+
+            MemoryCart loaded = loadTemplate.execute(status -> {
+                Cart stored = cartSource.get();
+                return new MemoryCart(username, stored.getId(), stored.getUser().getUserId(), stored.getVersion(),
+                        cartItemRepository.findLinesByCartId(stored.getId()));
+            });
+
+            synchronized (shard) {
+                MemoryCart cart = shard.carts.get(username);
+                if (cart != null) {
+                    return cart;
+                }
+                // A cart dropped while this one was read may have been read before the drop's changes
+                if (shard.generation == generation) {
+                    shard.carts.put(username, loaded);
+                    return loaded;
+                }
+            }
+        }
+    }
+
+    private long[] nextLineIds(int count) {
+        long[] lineIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            lineIds[i] = idAllocator.nextId(CartItem.class);
+        }
+        return lineIds;
+    }
+
+    private void remove(String username) {
+        Shard shard = shard(username);
+        synchronized (shard) {
+            MemoryCart cart = shard.carts.remove(username);
+            if (cart != null) {
+                shard.dirty.remove(cart);
+                shard.generation++;
+            }
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMillis;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                if (shard.carts.values().removeIf(cart -> !shard.dirty.contains(cart) && cart.lastUsed < cutoff)) {
+                    shard.generation++;
+                }
+            }
+        }
+    }
+
+    // Null when none of the cart's changes are newer than the stored version, or the cart is gone
+    private MemoryCart replay(long cartId, List<CartLogEntry> entries) {
+        if (!cartRepository.existsById(cartId)) {
+            return null;
+        }
+        long storedVersion = cartRepository.findVersionById(cartId);
+        MemoryCart cart = new MemoryCart(null, cartId, 0, storedVersion, cartItemRepository.findLinesByCartId(cartId));
+        for (CartLogEntry entry : entries) {
+            // Entries up to the stored version were written before the crash; a carried-forward entry repeats a version
+            if (entry.version() > storedVersion) {
+                cart.apply(entry.lines());
+                cart.version = Math.max(cart.version, entry.version());
+            }
+        }
+        return cart.pendingLines().isEmpty() ? null : cart;
+    }
+
+    // Falls back to one transaction per cart, so one cart that cannot be written does not hold back the others
+    private void writeEach(List<PendingWrite> writes) {
+        for (PendingWrite write : writes) {
+            try {
+                writeAlone(write);
+            } catch (RuntimeException e) {
+                logger.error("Cannot write cart {}; keeping it for the next flush", write.cartId(), e);
+                restore(write);
+            }
+        }
+    }
+
+    // A line whose product was deleted while the line was only in memory fails the foreign key on every
+    // write, so once a write fails those lines are dropped and the rest is written again
+    private void writeAlone(PendingWrite write) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(List.of(write)));
+        } catch (RuntimeException e) {
+            PendingWrite withoutMissing = withoutMissingProducts(write);
+            if (withoutMissing == null) {
+                throw e;
+            }
+            transactionTemplate.executeWithoutResult(status -> write(List.of(withoutMissing)));
+        }
+    }
+
+    private PendingWrite withoutMissingProducts(PendingWrite write) {
+        Set<Long> productIds = new HashSet<>();
+        for (CartLine line : write.lines()) {
+            productIds.add(line.productId());
+        }
+        if (productIds.isEmpty()) {
+            return null;
+        }
+        productIds.removeAll(productRepository.findExistingIds(productIds));
+        if (productIds.isEmpty()) {
+            return null;
+        }
+        List<CartLine> kept = new ArrayList<>();
+        List<CartLine> dropped = new ArrayList<>();
+        for (CartLine line : write.lines()) {
+            (productIds.contains(line.productId()) ? dropped : kept).add(line);
+        }
+        logger.warn("Dropping {} lines of cart {} whose products no longer exist", dropped.size(), write.cartId());
+        drop(write.cart(), dropped);
+        List<Long> removedLineIds = new ArrayList<>(write.removedLineIds());
+        dropped.forEach(line -> removedLineIds.add(line.id()));
+        return new PendingWrite(write.cart(), write.cartId(), write.version(), kept, removedLineIds);
+    }
+
+    // Removes the lines from the cart as a change of its own, so the customer no longer sees them
+    private void drop(MemoryCart cart, List<CartLine> lines) {
+        List<CartLine> removals = lines.stream().map(line -> line.withQuantity(0)).toList();
+        if (cart.username == null) {
+            cart.apply(removals);
+            return;
+        }
+        Shard shard = shard(cart.username);
+        synchronized (shard) {
+            if (shard.carts.get(cart.username) == cart) {
+                long version = cart.version + 1;
+                log.append(new CartLogEntry(cart.cartId, version, removals));
+                cart.apply(removals);
+                cart.version = version;
+                shard.dirty.add(cart);
+            }
+        }
+    }
+
+    // Removed lines go first, so a product removed and added again never holds two lines at once
+    private void write(List<PendingWrite> writes) {
+        List<Long> removedLineIds = new ArrayList<>();
+        Map<Long, Collection<CartLine>> linesByCart = new LinkedHashMap<>();
+        Map<Long, Long> versionsByCart = new LinkedHashMap<>();
+        for (PendingWrite write : writes) {
+            removedLineIds.addAll(write.removedLineIds());
+            linesByCart.put(write.cartId(), write.lines());
+            versionsByCart.put(write.cartId(), write.version());
+        }
+        cartUpsertRepository.deleteLines(removedLineIds);
+        cartUpsertRepository.putLines(linesByCart);
+        cartUpsertRepository.setVersions(versionsByCart);
+    }
+
+    // The segments the write came from may be deleted by a flush running meanwhile, so its changes are logged again
+    private void restore(PendingWrite write) {
+        MemoryCart cart = write.cart();
+        if (cart.username == null) {
+            return;
+        }
+        Shard shard = shard(cart.username);
+        synchronized (shard) {
+            if (shard.carts.get(cart.username) == cart) {
+                cart.restore(write);
+                shard.dirty.add(cart);
+                carryForward(cart);
+            }
+        }
+    }
+
+    // Appends what the database is missing of the cart as one entry at its current version; called under the shard lock
+    private void carryForward(MemoryCart cart) {
+        List<CartLine> pending = cart.unwrittenLines();
+        if (!pending.isEmpty()) {
+            log.append(new CartLogEntry(cart.cartId, cart.version, pending));
+        }
+    }
+
+    private Shard shard(String username) {
+        return shards[Math.floorMod(username.hashCode(), shards.length)];
+    }
+
+    private static final class Shard {
+
+        private final Map<String, MemoryCart> carts = new HashMap<>();
+        private final Set<MemoryCart> dirty = new LinkedHashSet<>();
+        // Raised whenever a cart is dropped
+        private long generation;
+    }
+
+    private static final class MemoryCart {
+
+        private final String username;
+        private final long cartId;
+        private final long userId;
+        private long version;
+        // Line ids grow, so insertion order is id order
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        private final Map<Long, Long> lineIdsByProduct = new HashMap<>();
+        // What the database is missing since the last write
+        private final Set<Long> changedLineIds = new HashSet<>();
+        private final Set<Long> removedLineIds = new HashSet<>();
+        private long lastUsed = System.currentTimeMillis();
+        // Held while the cart's changes are being written
+        private final ReentrantLock writeLock = new ReentrantLock();
+        // The write a checkout has under way, until it commits or fails
+        private PendingWrite writing;
+
+        MemoryCart(String username, long cartId, long userId, long version, List<CartLine> lines) {
+            this.username = username;
+            this.cartId = cartId;
+            this.userId = userId;
+            this.version = version;
+            for (CartLine line : lines) {
+                this.lines.put(line.id(), line);
+                lineIdsByProduct.put(line.productId(), line.id());
+            }
+        }
+
+        void apply(Collection<CartLine> changes) {
+            for (CartLine line : changes) {
+                if (line.quantity() == 0) {
+                    CartLine removed = lines.remove(line.id());
+                    if (removed != null) {
+                        lineIdsByProduct.remove(removed.productId(), removed.id());
+                    }
+                    changedLineIds.remove(line.id());
+                    removedLineIds.add(line.id());
+                } else {
+                    lines.put(line.id(), line);
+                    lineIdsByProduct.put(line.productId(), line.id());
+                    changedLineIds.add(line.id());
+                }
+            }
+        }
+
+        CartSnapshot snapshot() {
+            return new CartSnapshot(cartId, userId, version, List.copyOf(lines.values()));
+        }
+
+        // Changed lines as they are now and removed lines with no quantity, the same shape as a log entry
+        List<CartLine> pendingLines() {
+            List<CartLine> pending = new ArrayList<>(changedLineIds.size() + removedLineIds.size());
+            for (Long lineId : changedLineIds) {
+                pending.add(lines.get(lineId));
+            }
+            for (Long lineId : removedLineIds) {
+                pending.add(new CartLine(lineId, 0, 0));
+            }
+            return pending;
+        }
+
+        // The pending lines plus those of a write under way, which is not in the database until it commits
+        List<CartLine> unwrittenLines() {
+            if (writing == null) {
+                return pendingLines();
+            }
+            Map<Long, CartLine> unwritten = new LinkedHashMap<>();
+            for (CartLine line : writing.lines()) {
+                unwritten.put(line.id(), line);
+            }
+            for (Long lineId : writing.removedLineIds()) {
+                unwritten.put(lineId, new CartLine(lineId, 0, 0));
+            }
+            for (CartLine line : pendingLines()) {
+                unwritten.put(line.id(), line);
+            }
+            return new ArrayList<>(unwritten.values());
+        }
+
+        PendingWrite takeWrite() {
+            List<CartLine> changed = new ArrayList<>(changedLineIds.size());
+            for (Long lineId : changedLineIds) {
+                changed.add(lines.get(lineId));
+            }
+            PendingWrite write = new PendingWrite(this, cartId, version, changed, List.copyOf(removedLineIds));
+            changedLineIds.clear();
+            removedLineIds.clear();
+            return write;
+        }
+
+        // Lines changed since the write was taken are already marked; the rest are marked again
+        void restore(PendingWrite write) {
+            writing = null;
+            for (CartLine line : write.lines()) {
+                if (lines.containsKey(line.id())) {
+                    changedLineIds.add(line.id());
+                }
+            }
+            removedLineIds.addAll(write.removedLineIds());
+        }
+    }
+
+    private record PendingWrite(MemoryCart cart, long cartId, long version, List<CartLine> lines, List<Long> removedLineIds) {}
+}
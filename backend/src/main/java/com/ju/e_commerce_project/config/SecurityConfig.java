@@ -1,9 +1,14 @@
 package com.ju.e_commerce_project.config;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.filter.JwtAuthFilter;
 import com.ju.e_commerce_project.model.UserRole;
 import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.security.BoundedPasswordEncoder;
 import com.ju.e_commerce_project.service.UserDetailsServiceImp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,24 +26,36 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.http.HttpMethod;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+    private static final int MAX_BCRYPT_STRENGTH = 16;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http, AuthenticationProvider authenticationProvider, JwtAuthFilter jwtAuthFilter) throws Exception {
         http
                 .csrf(CsrfConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers(HttpMethod.GET,"/api/product-categories").permitAll()
-                        .requestMatchers(HttpMethod.GET,"/api/products/category/*").permitAll()
-                        .requestMatchers(HttpMethod.POST,"/api/products/**").hasRole(UserRole.Seller.name())
-                        .requestMatchers(HttpMethod.GET, "/api/products/my-products").hasRole(UserRole.Seller.name())
-                        .requestMatchers(HttpMethod.PUT, "/api/products/{productId}").hasRole(UserRole.Seller.name())
-                        .requestMatchers(HttpMethod.DELETE, "/api/products/{productId}").hasRole(UserRole.Seller.name())
-                        .requestMatchers("/api/cart/**").hasRole(UserRole.Customer.name())
-                        .requestMatchers("/api/orders/**").hasRole(UserRole.Customer.name())
+                        .requestMatchers(antMatcher("/api/auth/logout")).authenticated()
+                        .requestMatchers(antMatcher("/api/auth/**")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/product-categories")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products/category/*")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products/search")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products/suggest")).permitAll()
+                        .requestMatchers(antMatcher(HttpMethod.POST, "/api/products/**")).hasRole(UserRole.Seller.name())
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products/my-products")).hasRole(UserRole.Seller.name())
+                        .requestMatchers(antMatcher(HttpMethod.GET, "/api/products/export")).hasRole(UserRole.Seller.name())
+                        .requestMatchers(antMatcher(HttpMethod.PUT, "/api/products/{productId}")).hasRole(UserRole.Seller.name())
+                        .requestMatchers(antMatcher(HttpMethod.DELETE, "/api/products/{productId}")).hasRole(UserRole.Seller.name())
+                        .requestMatchers(antMatcher("/api/cart/**")).hasRole(UserRole.Customer.name())
+                        .requestMatchers(antMatcher("/api/orders/**")).hasRole(UserRole.Customer.name())
+                        .requestMatchers(antMatcher("/api/admin/**")).hasRole(UserRole.Admin.name())
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session
@@ -58,14 +75,28 @@ public class SecurityConfig {
         return authenticationProvider;
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt-strength:0}") int bcryptStrength,
+            @Value("${security.password.target-hash-millis:250}") long targetHashMillis,
+            @Value("${security.password.hashing-threads:0}") int hashingThreads,
+            @Value("${security.password.hashing-queue-capacity:64}") int hashingQueueCapacity,
+            @Value("${security.password.hashing-timeout-millis:5000}") long hashingTimeoutMillis
+    ) {
+        // A strength of 0 calibrates the work factor against the target latency at startup
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BoundedPasswordEncoder.calibrateStrength(targetHashMillis, MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH);
+        // Leave at least half of the cores to request threads by default
+        int threads = hashingThreads > 0 ? hashingThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        logger.info("Password hashing uses BCrypt strength {} on {} threads", strength, threads);
+
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), threads, hashingQueueCapacity, hashingTimeoutMillis);
     }
 
     @Bean
-    public UserDetailsService userDetailsService(UserRepository userRepository) {
-        return new UserDetailsServiceImp(userRepository);
+    public UserDetailsService userDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache) {
+        return new UserDetailsServiceImp(userRepository, userDetailsCache);
     }
 
     @Bean
@@ -0,0 +1,70 @@
+package com.ju.e_commerce_project.controller;
+
+import com.ju.e_commerce_project.cache.CacheStats;
+import com.ju.e_commerce_project.cache.ProductListingCache;
+import com.ju.e_commerce_project.cache.UserDetailsCache;
+import com.ju.e_commerce_project.service.JwtService;
+import com.ju.e_commerce_project.service.ProductExportService;
+import com.ju.e_commerce_project.service.TokenVersionService;
+import com.ju.e_commerce_project.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final JwtService jwtService;
+    private final TokenVersionService tokenVersionService;
+    private final UserDetailsCache userDetailsCache;
+    private final ProductListingCache productListingCache;
+    private final ProductExportService productExportService;
+    private final UserService userService;
+
+    @Autowired
+    public AdminController(JwtService jwtService, TokenVersionService tokenVersionService, UserDetailsCache userDetailsCache,
+                           ProductListingCache productListingCache, ProductExportService productExportService,
+                           UserService userService) {
+        this.jwtService = jwtService;
+        this.tokenVersionService = tokenVersionService;
+        this.userDetailsCache = userDetailsCache;
+        this.productListingCache = productListingCache;
+        this.productExportService = productExportService;
+        this.userService = userService;
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        Map<String, CacheStats> cacheStats = new LinkedHashMap<>();
+        cacheStats.put("verifiedTokens", jwtService.verifiedTokenCacheStats());
+        cacheStats.put("tokenVersions", tokenVersionService.cacheStats());
+        cacheStats.put("userDetails", userDetailsCache.stats());
+        cacheStats.put("productListings", productListingCache.stats());
+        return ResponseEntity.ok(cacheStats);
+    }
+
+    // Signs the user out everywhere, e.g. after a compromised account: every access and refresh token stops working
+    @PostMapping("/users/{username}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable String username) {
+        userService.revokeAllTokens(username);
+        return ResponseEntity.noContent().build();
+    }
+
+    // The whole catalog for feed jobs, or one seller's products when seller is given
+    @GetMapping(value = "/products/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String seller) {
+        StreamingResponseBody body = output -> productExportService.exportProducts(seller, output);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
@@ -3,13 +3,16 @@ package com.ju.e_commerce_project.controller;
 import com.ju.e_commerce_project.dto.response.LoginUserResponse;
 import com.ju.e_commerce_project.dto.response.RegisterUserResponse;
 import com.ju.e_commerce_project.dto.request.LoginUserRequest;
+import com.ju.e_commerce_project.dto.request.RefreshTokenRequest;
 import com.ju.e_commerce_project.dto.request.RegisterUserRequest;
 import com.ju.e_commerce_project.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -34,4 +37,19 @@ public class AuthController {
         return ResponseEntity.ok(authService.loginUser(userRequest));
     }
 
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginUserResponse> refreshAccessToken(@RequestBody @Valid RefreshTokenRequest refreshTokenRequest) {
+        return ResponseEntity.ok(authService.refreshAccessToken(refreshTokenRequest));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestHeader(HttpHeaders.AUTHORIZATION) String authHeader,
+            @RequestBody(required = false) RefreshTokenRequest refreshTokenRequest
+    ) {
+        String refreshToken = refreshTokenRequest != null ? refreshTokenRequest.refreshToken() : null;
+        authService.logout(authHeader.substring(7), refreshToken);
+        return ResponseEntity.noContent().build();
+    }
+
 }
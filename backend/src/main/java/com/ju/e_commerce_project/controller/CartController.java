@@ -2,6 +2,7 @@ package com.ju.e_commerce_project.controller;
 
 import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
 import com.ju.e_commerce_project.dto.request.UpdateCartItemRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartRequest;
 import com.ju.e_commerce_project.dto.response.CartResponse;
 import com.ju.e_commerce_project.service.CartService;
 import jakarta.validation.Valid;
@@ -34,26 +35,51 @@ public class CartController {
         return ResponseEntity.ok(cartResponse);
     }
 
+    // Several adds, updates and removes in one request; the whole cart comes back once
+    @PatchMapping
+    public ResponseEntity<CartResponse> updateCart(@Valid @RequestBody UpdateCartRequest request) {
+        String username = getCurrentUsername();
+        CartResponse cartResponse = cartService.applyOperations(username, request);
+        return ResponseEntity.ok(cartResponse);
+    }
+
+    // With delta=true the mutations answer with a CartDeltaResponse instead of the whole cart
     @PostMapping("/items")
-    public ResponseEntity<CartResponse> addItemToCart(@Valid @RequestBody AddItemToCartRequest request) {
+    public ResponseEntity<?> addItemToCart(
+            @Valid @RequestBody AddItemToCartRequest request,
+            @RequestParam(defaultValue = "false") boolean delta
+    ) {
         String username = getCurrentUsername();
+        if (delta) {
+            return ResponseEntity.ok(cartService.addItemToCartDelta(username, request));
+        }
         CartResponse cartResponse = cartService.addItemToCart(username, request);
         return ResponseEntity.ok(cartResponse);
     }
 
     @PutMapping("/items/{cartItemId}")
-    public ResponseEntity<CartResponse> updateCartItem(
+    public ResponseEntity<?> updateCartItem(
             @PathVariable Long cartItemId,
-            @Valid @RequestBody UpdateCartItemRequest request
+            @Valid @RequestBody UpdateCartItemRequest request,
+            @RequestParam(defaultValue = "false") boolean delta
     ) {
         String username = getCurrentUsername();
+        if (delta) {
+            return ResponseEntity.ok(cartService.updateCartItemDelta(username, cartItemId, request));
+        }
         CartResponse cartResponse = cartService.updateCartItem(username, cartItemId, request);
         return ResponseEntity.ok(cartResponse);
     }
 
     @DeleteMapping("/items/{cartItemId}")
-    public ResponseEntity<CartResponse> removeCartItem(@PathVariable Long cartItemId) {
+    public ResponseEntity<?> removeCartItem(
+            @PathVariable Long cartItemId,
+            @RequestParam(defaultValue = "false") boolean delta
+    ) {
         String username = getCurrentUsername();
+        if (delta) {
+            return ResponseEntity.ok(cartService.removeCartItemDelta(username, cartItemId));
+        }
         CartResponse cartResponse = cartService.removeCartItem(username, cartItemId);
         return ResponseEntity.ok(cartResponse);
     }
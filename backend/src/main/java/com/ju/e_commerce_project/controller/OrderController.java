@@ -2,6 +2,7 @@ package com.ju.e_commerce_project.controller;
 
 import com.ju.e_commerce_project.dto.request.PlaceOrderRequest;
 import com.ju.e_commerce_project.dto.response.OrderResponse;
+import com.ju.e_commerce_project.repository.ResourceVersion;
 import com.ju.e_commerce_project.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -32,8 +34,13 @@ public class OrderController {
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderResponse>> getOrderHistory() {
+    public ResponseEntity<List<OrderResponse>> getOrderHistory(WebRequest webRequest) {
         String username = getCurrentUsername();
+        ResourceVersion version = orderService.getOrderHistoryVersion(username);
+        if (webRequest.checkNotModified(version.eTag(username))) {
+            return null;
+        }
+
         List<OrderResponse> orderHistory = orderService.getOrderHistory(username);
         return ResponseEntity.ok(orderHistory);
     }
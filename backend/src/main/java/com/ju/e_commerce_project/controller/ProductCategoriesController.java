@@ -5,6 +5,7 @@ import com.ju.e_commerce_project.service.ProductCategoryService;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,7 +20,11 @@ public class ProductCategoriesController {
     }
 
     @GetMapping
-    public List<ProductCategory> getAllCategories() {
+    public List<ProductCategory> getAllCategories(WebRequest webRequest) {
+        // The list and its ETag both come from the in-memory snapshot
+        if (webRequest.checkNotModified(productCategoryService.getCategoriesETag())) {
+            return null;
+        }
         return productCategoryService.getAllCategories();
     }
 }
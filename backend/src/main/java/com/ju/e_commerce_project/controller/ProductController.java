@@ -1,29 +1,56 @@
 package com.ju.e_commerce_project.controller;
 
+import com.ju.e_commerce_project.dto.response.BulkUpdateProductsResponse;
+import com.ju.e_commerce_project.dto.response.ProductBrowseResponse;
+import com.ju.e_commerce_project.dto.response.ProductImportResponse;
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
 import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSearchResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
 import com.ju.e_commerce_project.dto.request.AddProductRequest;
+import com.ju.e_commerce_project.dto.request.BulkUpdateProductsRequest;
 import com.ju.e_commerce_project.dto.request.UpdateProductRequest;
+import com.ju.e_commerce_project.importer.ProductImportFormat;
 import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.repository.ResourceVersion;
+import com.ju.e_commerce_project.service.ProductBulkUpdateService;
+import com.ju.e_commerce_project.service.ProductExportService;
+import com.ju.e_commerce_project.service.ProductImportService;
 import com.ju.e_commerce_project.service.ProductService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/products")
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final ProductBulkUpdateService productBulkUpdateService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService,
+                             ProductExportService productExportService, ProductBulkUpdateService productBulkUpdateService) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productExportService = productExportService;
+        this.productBulkUpdateService = productBulkUpdateService;
     }
 
     @PostMapping("/")
@@ -41,37 +68,94 @@ public class ProductController {
         return ResponseEntity.ok(productResponse);
     }
 
+    // The body is read as it arrives; the response lists the records that were skipped
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResponse> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String sellerUsername = authentication.getName();
+
+        ProductImportFormat format = ProductImportFormat.fromMediaType(contentType);
+        return ResponseEntity.ok(productImportService.importProducts(sellerUsername, format, body,
+                contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8));
+    }
+
+    @GetMapping
+    public ResponseEntity<ProductBrowseResponse> browseProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Set<Long> category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Set<String> seller,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.browseProducts(q, category, minPrice, maxPrice, seller, sort, cursor, size));
+    }
+
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<ProductResponse>> getProductsByCategory(@PathVariable @NotNull Long categoryId) {
-        List<Product> products = productService.getProductsByCategory(categoryId);
+    public ResponseEntity<ProductPageResponse> getProductsByCategory(
+            @PathVariable @NotNull Long categoryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Set<String> fields,
+            WebRequest webRequest) {
+        ResourceVersion version = productService.getCategoryListingVersion(categoryId);
+        if (webRequest.checkNotModified(version.eTag(cursor, size, fields))) {
+            return null;
+        }
+
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, cursor, size, includesDescription(fields)));
+    }
 
-        List<ProductResponse> productResponses = products.stream().map(product -> new ProductResponse(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getCategory().getName()
-        )).toList();
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.searchProducts(q, size));
+    }
 
-        return ResponseEntity.ok(productResponses);
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestion>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(productService.suggestProducts(prefix, size));
     }
 
     @GetMapping("/my-products")
-    public ResponseEntity<List<ProductResponse>> getMyProducts() {
+    public ResponseEntity<ProductPageResponse> getMyProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) Set<String> fields,
+            WebRequest webRequest) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentPrincipalName = authentication.getName();
 
-        List<Product> products = productService.getProductsBySeller(currentPrincipalName);
+        ResourceVersion version = productService.getSellerListingVersion(currentPrincipalName);
+        if (webRequest.checkNotModified(version.eTag(currentPrincipalName, cursor, size, fields))) {
+            return null;
+        }
 
-        List<ProductResponse> productResponses = products.stream().map(product -> new ProductResponse(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getCategory().getName()
-        )).toList();
+        return ResponseEntity.ok(productService.getProductsBySeller(currentPrincipalName, cursor, size, includesDescription(fields)));
+    }
+
+    // Written row by row as the database returns them, after the response has started
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportMyProducts() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String sellerUsername = authentication.getName();
 
-        return ResponseEntity.ok(productResponses);
+        StreamingResponseBody body = output -> productExportService.exportProducts(sellerUsername, output);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping("/bulk-update")
+    public ResponseEntity<BulkUpdateProductsResponse> bulkUpdateProducts(@RequestBody @Valid BulkUpdateProductsRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String sellerUsername = authentication.getName();
+
+        return ResponseEntity.ok(productBulkUpdateService.updateProducts(sellerUsername, request));
     }
 
     @PutMapping("/{productId}")
@@ -101,4 +185,9 @@ public class ProductController {
         productService.deleteProduct(productId, sellerUsername);
         return ResponseEntity.noContent().build();
     }
+
+    // List views can ask for e.g. fields=id,name,price,categoryName to skip the description
+    private static boolean includesDescription(Set<String> fields) {
+        return fields == null || fields.isEmpty() || fields.contains("description");
+    }
 }
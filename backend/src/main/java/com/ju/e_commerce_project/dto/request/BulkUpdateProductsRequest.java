@@ -0,0 +1,14 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+// Either a list of per-product changes or a rule, not both
+public record BulkUpdateProductsRequest(
+        List<@NotNull @Valid ProductChange> changes,
+
+        @Valid
+        PriceRule rule
+) {}
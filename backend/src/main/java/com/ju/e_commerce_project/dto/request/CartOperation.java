@@ -0,0 +1,17 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// ADD takes productId and quantity, UPDATE takes cartItemId and quantity, REMOVE takes cartItemId
+public record CartOperation(
+        @NotNull(message = "Operation type is required")
+        CartOperationType type,
+
+        Long productId,
+
+        Long cartItemId,
+
+        @Min(value = 1, message = "Quantity must be at least 1")
+        Integer quantity
+) {}
@@ -0,0 +1,7 @@
+package com.ju.e_commerce_project.dto.request;
+
+public enum CartOperationType {
+    ADD,
+    UPDATE,
+    REMOVE
+}
@@ -0,0 +1,19 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+// Changes the price of every product of the seller in the category (or in all categories) by a percentage
+public record PriceRule(
+        Long categoryId,
+
+        @NotNull(message = "Percent is required")
+        @DecimalMin(value = "-100", message = "Percent must be at least -100")
+        @DecimalMax(value = "1000", message = "Percent must be at most 1000")
+        @Digits(integer = 4, fraction = 2, message = "Percent must have at most 2 decimal places")
+        BigDecimal percent
+) {}
@@ -0,0 +1,19 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+
+// A null price or categoryId leaves that column as it is
+public record ProductChange(
+        @NotNull(message = "Product ID is required")
+        Long productId,
+
+        @DecimalMin(value = "0", message = "Price must not be negative")
+        @Digits(integer = 8, fraction = 2, message = "Price must have at most 8 digits and 2 decimal places")
+        BigDecimal price,
+
+        Long categoryId
+) {}
@@ -0,0 +1,8 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record RefreshTokenRequest(
+        @NotBlank(message = "Refresh token is required")
+        String refreshToken
+) {}
@@ -0,0 +1,15 @@
+package com.ju.e_commerce_project.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Applied in order, all or nothing
+public record UpdateCartRequest(
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 200, message = "At most 200 operations can be sent at once")
+        List<@NotNull @Valid CartOperation> operations
+) {}
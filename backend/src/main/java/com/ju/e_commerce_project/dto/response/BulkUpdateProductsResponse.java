@@ -0,0 +1,5 @@
+package com.ju.e_commerce_project.dto.response;
+
+public record BulkUpdateProductsResponse(
+        int updated
+) {}
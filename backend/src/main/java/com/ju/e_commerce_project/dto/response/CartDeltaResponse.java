@@ -0,0 +1,17 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.math.BigDecimal;
+
+/**
+ * The outcome of one cart mutation: the changed line (or the id of the removed one), the new
+ * totals and the new cart version. Each mutation raises the version by one, so a client whose
+ * copy is not at {@code version - 1} has missed a change and should fetch the whole cart.
+ */
+public record CartDeltaResponse(
+        Long cartId,
+        long version,
+        CartItemResponse item,
+        Long removedCartItemId,
+        BigDecimal totalPrice,
+        int totalItems
+) {}
@@ -6,6 +6,7 @@ import java.util.List;
 public record CartResponse(
         Long cartId,
         Long userId,
+        long version,
         List<CartItemResponse> items,
         BigDecimal totalPrice,
         int totalItems
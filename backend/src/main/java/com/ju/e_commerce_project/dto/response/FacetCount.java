@@ -0,0 +1,9 @@
+package com.ju.e_commerce_project.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+public record FacetCount(
+        String value,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String label,
+        int count
+) {}
@@ -5,5 +5,6 @@ import com.ju.e_commerce_project.model.UserRole;
 public record LoginUserResponse(
         String username,
         String accessToken,
-        UserRole role
+        UserRole role,
+        String refreshToken
 ){}
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.util.List;
+
+public record ProductBrowseResponse(
+        List<ProductResponse> items,
+        int total,
+        String next,
+        ProductFacets facets
+) {}
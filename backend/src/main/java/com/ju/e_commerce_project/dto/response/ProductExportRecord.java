@@ -0,0 +1,16 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+public record ProductExportRecord(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Long categoryId,
+        String categoryName,
+        String sellerUsername,
+        Date createdAt,
+        Date updatedAt
+) {}
@@ -0,0 +1,9 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.util.List;
+
+public record ProductFacets(
+        List<FacetCount> categories,
+        List<FacetCount> priceRanges,
+        List<FacetCount> sellers
+) {}
@@ -0,0 +1,9 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.util.List;
+
+public record ProductImportResponse(
+        int imported,
+        int failed,
+        List<ProductImportError> errors
+) {}
@@ -0,0 +1,8 @@
+package com.ju.e_commerce_project.dto.response;
+
+import java.util.List;
+
+public record ProductPageResponse(
+        List<ProductResponse> items,
+        String next
+) {}
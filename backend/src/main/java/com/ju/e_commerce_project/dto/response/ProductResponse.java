@@ -1,11 +1,13 @@
 package com.ju.e_commerce_project.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.math.BigDecimal;
 
 public record ProductResponse(
         Long id,
         String name,
-        String description,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String description,
         BigDecimal price,
         String categoryName
 ) {}
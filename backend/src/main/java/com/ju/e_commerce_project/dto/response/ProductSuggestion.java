@@ -0,0 +1,6 @@
+package com.ju.e_commerce_project.dto.response;
+
+public record ProductSuggestion(
+        Long id,
+        String name
+) {}
@@ -2,5 +2,6 @@ package com.ju.e_commerce_project.dto.response;
 
 public record RegisterUserResponse(
         String username,
-        String accessToken
+        String accessToken,
+        String refreshToken
 ){}
@@ -1,16 +1,23 @@
 package com.ju.e_commerce_project.filter;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.ju.e_commerce_project.service.JwtService;
+import com.ju.e_commerce_project.service.TokenRevocationService;
+import com.ju.e_commerce_project.service.TokenVersionService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -18,55 +25,79 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Map;
 
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
+    private static final ObjectWriter ERROR_WRITER = new ObjectMapper().writer();
+    private static final byte[] EXPIRED_TOKEN_ERROR = errorBody("Invalid or expired JWT token");
+    private static final byte[] REVOKED_TOKEN_ERROR = errorBody("JWT token has been revoked");
+    private static final WebAuthenticationDetailsSource AUTHENTICATION_DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
     private final UserDetailsService userDetailsService;
     private final JwtService jwtService;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final boolean claimsAuthentication;
 
     @Autowired
-    public JwtAuthFilter(UserDetailsService userDetailsService, JwtService jwtService) {
+    public JwtAuthFilter(
+            UserDetailsService userDetailsService,
+            JwtService jwtService,
+            TokenVersionService tokenVersionService,
+            TokenRevocationService tokenRevocationService,
+            @Value("${security.jwt.claims-authentication:false}") boolean claimsAuthentication
+    ) {
         this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
+        this.tokenVersionService = tokenVersionService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.claimsAuthentication = claimsAuthentication;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
         final String authHeader  = request.getHeader("Authorization");
-        String username = null;
-        String jwtToken = null;
-        HashMap<String, String> errorDetails = new HashMap<>();
-
-        // Check if the header exists and starts with "Bearer "
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
-
-            try {
-                username = jwtService.extractUsername(jwtToken);
-            } catch (Exception e) {
-                errorDetails.put("error", "Invalid JWT token");
-                errorDetails.put("details", e.getMessage());
-                errorResponse(response, errorDetails);
-                return;
-            }
+
+        // Anonymous requests, mostly catalog reads on permitAll routes, need no token work at all
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Claims claims;
+        try {
+            claims = jwtService.extractAllClaims(authHeader.substring(7));
+        } catch (Exception e) {
+            writeError(response, ERROR_WRITER.writeValueAsBytes(Map.of(
+                    "error", "Invalid JWT token",
+                    "details", String.valueOf(e.getMessage())
+            )));
+            return;
+        }
+
+        if (tokenRevocationService.isRevoked(claims.getId())) {
+            writeError(response, REVOKED_TOKEN_ERROR);
+            return;
         }
 
-        // Only attempt to authenticate if we have a username and no existing authentication
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        // Only attempt to authenticate if there is no existing authentication
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            // In claims mode the user is rebuilt from the token itself; older tokens without claims fall back to a lookup
+            UserDetails userDetails = claimsAuthentication && claims.containsKey(JwtService.TOKEN_VERSION_CLAIM)
+                    ? userDetailsFromClaims(claims)
+                    : this.userDetailsService.loadUserByUsername(claims.getSubject());
 
             // Validate the token and, if valid, set the user's authentication in the SecurityContext
-            if (jwtService.isTokenValid(jwtToken, userDetails)) {
+            if (userDetails != null && jwtService.isTokenValid(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                authToken.setDetails(AUTHENTICATION_DETAILS_SOURCE.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             } else {
-                errorDetails.put("error", "Invalid or expired JWT token");
-                errorResponse(response, errorDetails);
+                writeError(response, EXPIRED_TOKEN_ERROR);
                 return;
             }
         }
@@ -74,9 +105,31 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         chain.doFilter(request, response);
     }
 
-    private static void errorResponse(HttpServletResponse response, HashMap<String, String> errorDetails) throws IOException {
+    private UserDetails userDetailsFromClaims(Claims claims) {
+        Long userId = claims.get(JwtService.USER_ID_CLAIM, Long.class);
+        Integer tokenVersion = claims.get(JwtService.TOKEN_VERSION_CLAIM, Integer.class);
+        if (userId == null || tokenVersion == null || !tokenVersionService.isCurrent(userId, tokenVersion)) {
+            return null;
+        }
+
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities("ROLE_" + claims.get(JwtService.ROLE_CLAIM, String.class))
+                .build();
+    }
+
+    private static void writeError(HttpServletResponse response, byte[] body) throws IOException {
         response.setStatus(HttpStatus.FORBIDDEN.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        new ObjectMapper().writeValue(response.getWriter(), errorDetails);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static byte[] errorBody(String message) {
+        try {
+            return ERROR_WRITER.writeValueAsBytes(Map.of("error", message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,170 @@
+package com.ju.e_commerce_project.importer;
+
+import com.ju.e_commerce_project.dto.request.AddProductRequest;
+import com.ju.e_commerce_project.exception.InvalidInputException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Reads RFC 4180 CSV whose first record names the columns: {@code name}, {@code price} and
+ * {@code categoryId} are required, {@code description} is optional and other columns are ignored.
+ * Quoted fields may contain commas, doubled quotes and line breaks. Blank lines are skipped.
+ */
+class CsvProductRowReader implements ProductRowReader {
+
+    // Neither a line without breaks nor an unterminated quote can read the rest of the file into one record
+    static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final LineReader reader;
+    private final int nameColumn;
+    private final int descriptionColumn;
+    private final int priceColumn;
+    private final int categoryIdColumn;
+    private final int columnCount;
+    private long lineNumber;
+
+    CsvProductRowReader(BufferedReader reader) throws IOException {
+        this.reader = new LineReader(reader, MAX_RECORD_LENGTH);
+        List<String> header = readHeader();
+        this.nameColumn = header.indexOf("name");
+        this.descriptionColumn = header.indexOf("description");
+        this.priceColumn = header.indexOf("price");
+        this.categoryIdColumn = header.indexOf("categoryid");
+        this.columnCount = header.size();
+        if (nameColumn < 0 || priceColumn < 0 || categoryIdColumn < 0) {
+            throw new InvalidInputException("The CSV header must name the columns name, price and categoryId");
+        }
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        if (line == null) {
+            return null;
+        }
+
+        long recordLine = lineNumber;
+        if (reader.truncated()) {
+            return ProductRow.invalid(recordLine, "Record is longer than " + MAX_RECORD_LENGTH + " characters");
+        }
+        List<String> fields = new ArrayList<>(columnCount);
+        String error = parseRecord(line, fields);
+        if (error != null) {
+            return ProductRow.invalid(recordLine, error);
+        }
+        if (fields.size() != columnCount) {
+            return ProductRow.invalid(recordLine, "Expected " + columnCount + " fields but found " + fields.size());
+        }
+
+        List<String> errors = new ArrayList<>();
+        BigDecimal price = parse(fields.get(priceColumn), "price", BigDecimal::new, errors);
+        Long categoryId = parse(fields.get(categoryIdColumn), "categoryId", Long::valueOf, errors);
+        if (!errors.isEmpty()) {
+            return ProductRow.invalid(recordLine, String.join("; ", errors));
+        }
+        String description = descriptionColumn >= 0 ? fields.get(descriptionColumn) : null;
+        return ProductRow.of(recordLine, new AddProductRequest(
+                fields.get(nameColumn),
+                description == null || description.isEmpty() ? null : description,
+                price,
+                categoryId
+        ));
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private List<String> readHeader() throws IOException {
+        String line = reader.readLine();
+        lineNumber++;
+        List<String> header = new ArrayList<>();
+        if (line == null) {
+            return header;
+        }
+        if (reader.truncated()) {
+            throw new InvalidInputException("Invalid CSV header: Record is longer than " + MAX_RECORD_LENGTH + " characters");
+        }
+        if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1);
+        }
+        String error = parseRecord(line, header);
+        if (error != null) {
+            throw new InvalidInputException("Invalid CSV header: " + error);
+        }
+        header.replaceAll(column -> column.trim().toLowerCase(Locale.ROOT));
+        return header;
+    }
+
+    // Splits the record starting with this line into fields, reading further lines while a quoted
+    // field is open. Returns an error message instead when the record is malformed.
+    private String parseRecord(String line, List<String> fields) throws IOException {
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int recordLength = line.length();
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    fields.add(field.toString());
+                    return null;
+                }
+                line = reader.readLine();
+                lineNumber++;
+                if (line == null) {
+                    return "Unterminated quoted field";
+                }
+                recordLength += line.length() + 1;
+                if (reader.truncated() || recordLength > MAX_RECORD_LENGTH) {
+                    return "Record is longer than " + MAX_RECORD_LENGTH + " characters";
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser, List<String> errors) {
+        String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(trimmed);
+        } catch (NumberFormatException e) {
+            errors.add(column + " must be a number");
+            return null;
+        }
+    }
+}
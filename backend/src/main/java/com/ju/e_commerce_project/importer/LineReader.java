@@ -0,0 +1,73 @@
+package com.ju.e_commerce_project.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads lines like {@link java.io.BufferedReader#readLine()}, but holds at most {@code maxLength}
+ * characters of one: the rest of a longer line is read past and dropped, and {@link #truncated()}
+ * reports it. An upload without line breaks is thereby never read into memory whole.
+ */
+final class LineReader implements Closeable {
+
+    private final Reader reader;
+    private final int maxLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    // The last line ended with '\r'; a '\n' right after it belongs to the same line break
+    private boolean skipLineFeed;
+    private boolean truncated;
+
+    LineReader(Reader reader, int maxLength) {
+        this.reader = reader;
+        this.maxLength = maxLength;
+    }
+
+    // The next line without its line break, or null at the end of the input
+    String readLine() throws IOException {
+        StringBuilder line = null;
+        truncated = false;
+        while (true) {
+            if (position == limit) {
+                limit = Math.max(reader.read(buffer, 0, buffer.length), 0);
+                position = 0;
+                if (limit == 0) {
+                    return line == null ? null : line.toString();
+                }
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            if (line == null) {
+                line = new StringBuilder();
+            }
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            int end = Math.min(position, start + maxLength - line.length());
+            truncated |= end < position;
+            line.append(buffer, start, end - start);
+            if (position < limit) {
+                skipLineFeed = buffer[position++] == '\r';
+                return line.toString();
+            }
+        }
+    }
+
+    // Whether the line last read was longer than maxLength and has been cut short
+    boolean truncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
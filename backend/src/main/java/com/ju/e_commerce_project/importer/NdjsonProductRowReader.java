@@ -0,0 +1,54 @@
+package com.ju.e_commerce_project.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ju.e_commerce_project.dto.request.AddProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one JSON object per line with the fields of {@link AddProductRequest}. Blank lines are
+ * skipped.
+ */
+class NdjsonProductRowReader implements ProductRowReader {
+
+    static final int MAX_LINE_LENGTH = 1 << 20;
+
+    private final LineReader reader;
+    private final ObjectReader objectReader;
+    private long lineNumber;
+
+    NdjsonProductRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = new LineReader(reader, MAX_LINE_LENGTH);
+        this.objectReader = objectMapper.readerFor(AddProductRequest.class);
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            lineNumber++;
+        } while (line != null && line.isBlank());
+        if (line == null) {
+            return null;
+        }
+        if (reader.truncated()) {
+            return ProductRow.invalid(lineNumber, "Line is longer than " + MAX_LINE_LENGTH + " characters");
+        }
+
+        try {
+            AddProductRequest request = objectReader.readValue(line);
+            return request != null ? ProductRow.of(lineNumber, request) : ProductRow.invalid(lineNumber, "Expected a JSON object");
+        } catch (JsonProcessingException e) {
+            return ProductRow.invalid(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,31 @@
+package com.ju.e_commerce_project.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public enum ProductImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    ProductImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public ProductRowReader open(BufferedReader reader, ObjectMapper objectMapper) throws IOException {
+        return this == CSV ? new CsvProductRowReader(reader) : new NdjsonProductRowReader(reader, objectMapper);
+    }
+
+    public static ProductImportFormat fromMediaType(MediaType contentType) {
+        for (ProductImportFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(contentType)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
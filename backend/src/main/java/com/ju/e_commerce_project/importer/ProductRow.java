@@ -0,0 +1,18 @@
+package com.ju.e_commerce_project.importer;
+
+import com.ju.e_commerce_project.dto.request.AddProductRequest;
+
+/**
+ * One record of an import file: the product it describes, or why it could not be read.
+ * {@code line} is the line of the file the record starts on.
+ */
+public record ProductRow(long line, AddProductRequest request, String error) {
+
+    public static ProductRow of(long line, AddProductRequest request) {
+        return new ProductRow(line, request, null);
+    }
+
+    public static ProductRow invalid(long line, String error) {
+        return new ProductRow(line, null, error);
+    }
+}
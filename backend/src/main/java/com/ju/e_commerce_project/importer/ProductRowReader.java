@@ -0,0 +1,17 @@
+package com.ju.e_commerce_project.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the products of an import file one record at a time, so only the record being read is
+ * held in memory.
+ */
+public interface ProductRowReader extends Closeable {
+
+    /**
+     * Returns the next record, or null at the end of the file. A record that cannot be read is
+     * returned with an error rather than thrown, so the rest of the file can still be imported.
+     */
+    ProductRow next() throws IOException;
+}
@@ -1,6 +1,7 @@
 package com.ju.e_commerce_project.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,13 +15,18 @@ import java.util.List;
 public class Cart {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("carts_seq")
     private Long id;
 
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
 
+    // Bumped by one statement per mutation (CartRepository.incrementVersion), never written through the entity
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
+    private long version;
+
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<CartItem> cartItems = new ArrayList<>();
 
@@ -55,6 +61,10 @@ public class Cart {
         this.user = user;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public List<CartItem> getCartItems() {
         return cartItems;
     }
@@ -7,11 +7,12 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.util.Date;
 
 @Entity
-@Table(name = "cart_items")
+// One line per product; CartUpsertRepository relies on it to add to a line in a single statement
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"}))
 public class CartItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("cart_items_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
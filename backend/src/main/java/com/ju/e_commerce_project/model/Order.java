@@ -12,11 +12,11 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_user_id_updated_at", columnList = "user_id, updated_at"))
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("orders_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -11,7 +11,7 @@ import java.util.Date;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("order_items_seq")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,21 @@
+package com.ju.e_commerce_project.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the annotated id from the named sequence, reserving a block of ids per database round
+ * trip so inserts can be batched. Databases without sequences, such as MySQL, get a one-row table
+ * of that name instead.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface PooledSequence {
+
+    String value();
+}
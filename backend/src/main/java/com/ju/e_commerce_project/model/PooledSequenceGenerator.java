@@ -0,0 +1,39 @@
+package com.ju.e_commerce_project.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Hibernate's sequence generator with the pooled-lo optimizer: each value read from the sequence
+ * is the first of the next {@code persistence.id.allocation-size} ids, handed out from memory.
+ * The sequence (or table) must step by the same allocation size, so changing it means migrating
+ * the sequences too.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE_SETTING = "persistence.id.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private final String sequenceName;
+
+    public PooledSequenceGenerator(PooledSequence config) {
+        this.sequenceName = config.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+        parameters.put(SEQUENCE_PARAM, sequenceName);
+        parameters.put(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.put(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
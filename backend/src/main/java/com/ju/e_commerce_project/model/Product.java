@@ -8,11 +8,17 @@ import java.math.BigDecimal;
 import java.util.Date;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        // Keyset pagination walks these in id order within one category or seller
+        @Index(name = "idx_products_category_id_id", columnList = "category_id, id"),
+        @Index(name = "idx_products_seller_id_id", columnList = "seller_id, id"),
+        // Lets the conditional GET read the latest update of a category from the index alone
+        @Index(name = "idx_products_category_id_updated_at", columnList = "category_id, updated_at")
+})
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("products_seq")
     private Long id;
 
     @Column(nullable = false)
@@ -98,4 +104,12 @@ public class Product {
     public void setSeller(User seller) {
         this.seller = seller;
     }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
 }
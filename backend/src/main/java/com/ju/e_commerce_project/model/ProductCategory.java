@@ -11,7 +11,7 @@ import java.util.Date;
 public class ProductCategory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("categories_seq")
     private Long id;
 
     @Column(nullable = false)
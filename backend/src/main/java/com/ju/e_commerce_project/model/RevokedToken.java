@@ -0,0 +1,53 @@
+package com.ju.e_commerce_project.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "revoked_tokens", indexes = @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revoked_at"))
+public class RevokedToken {
+
+    // The token's jti claim
+    @Id
+    @Column(length = 36)
+    private String jti;
+
+    // Natural expiry of the revoked token; the row is useless after it
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+
+    // Other instances pick up revocations by this time
+    @CreationTimestamp
+    @Column(name = "revoked_at", updatable = false)
+    private Date revokedAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String jti, Date expiresAt) {
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    public void setJti(String jti) {
+        this.jti = jti;
+    }
+
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Date expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Date getRevokedAt() {
+        return revokedAt;
+    }
+}
@@ -11,7 +11,7 @@ import java.util.Date;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("users_seq")
     private Long userId;
 
     @Column(unique = true, nullable = false)
@@ -39,6 +39,11 @@ public class User {
     @Enumerated(EnumType.STRING)
     private UserRole role;
 
+    // Bumped whenever the user's existing tokens must stop being accepted, by one statement
+    // (UserRepository.incrementTokenVersion); saving a stale User must not write it back
+    @Column(name = "token_version", nullable = false, updatable = false)
+    private int tokenVersion;
+
     @CreationTimestamp
     @Column(updatable = false, name = "created_at")
     private Date createdAt;
@@ -131,4 +136,12 @@ public class User {
     public void setRole(UserRole role) {
         this.role = role;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
 }
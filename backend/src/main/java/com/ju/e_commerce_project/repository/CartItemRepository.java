@@ -1,15 +1,36 @@
 package com.ju.e_commerce_project.repository;
 
+import com.ju.e_commerce_project.cart.CartLine;
+import com.ju.e_commerce_project.dto.response.CartItemResponse;
 import com.ju.e_commerce_project.model.Cart;
 import com.ju.e_commerce_project.model.CartItem;
 import com.ju.e_commerce_project.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
+
+    // The cart read model: every line with its product in one statement, no entities loaded
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.CartItemResponse(i.id, p.id, p.name, p.description, p.price, i.quantity, p.price * i.quantity) " +
+            "FROM CartItem i JOIN i.product p WHERE i.cart.id = :cartId ORDER BY i.id")
+    List<CartItemResponse> findResponsesByCartId(Long cartId);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.CartItemResponse(i.id, p.id, p.name, p.description, p.price, i.quantity, p.price * i.quantity) " +
+            "FROM CartItem i JOIN i.product p WHERE i.id = :cartItemId")
+    CartItemResponse findResponseById(Long cartItemId);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.CartItemResponse(i.id, p.id, p.name, p.description, p.price, i.quantity, p.price * i.quantity) " +
+            "FROM CartItem i JOIN i.product p WHERE i.cart.id = :cartId AND p.id = :productId")
+    CartItemResponse findResponseByCartIdAndProductId(Long cartId, Long productId);
+
+    // What the write-behind store holds of a line; the product is not joined
+    @Query("SELECT new com.ju.e_commerce_project.cart.CartLine(i.id, i.product.id, i.quantity) FROM CartItem i WHERE i.cart.id = :cartId ORDER BY i.id")
+    List<CartLine> findLinesByCartId(Long cartId);
     // Optional<CartItem> findByIdAndCartUserUsername(Long cartItemId, String username); // For security checks
 }
@@ -3,6 +3,8 @@ package com.ju.e_commerce_project.repository;
 import com.ju.e_commerce_project.model.Cart;
 import com.ju.e_commerce_project.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -12,4 +14,18 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
     Optional<Cart> findByUserUserId(Long userId); // Convenience method
     Optional<Cart> findByUserUsername(String username);
+
+    // Every mutation bumps the version by exactly one. The UPDATE holds the cart row's write lock until
+    // commit, a pessimistic lock per cart: changes to one cart run one at a time, which consecutive
+    // versions need anyway, while different carts never wait for each other
+    @Modifying
+    @Query("UPDATE Cart c SET c.version = c.version + 1, c.updatedAt = CURRENT_TIMESTAMP WHERE c.id = :cartId")
+    void incrementVersion(Long cartId);
+
+    @Query("SELECT c.version FROM Cart c WHERE c.id = :cartId")
+    long findVersionById(Long cartId);
+
+    @Query("SELECT new com.ju.e_commerce_project.repository.CartSummary(c.version, COALESCE(SUM(p.price * i.quantity), 0), COALESCE(SUM(i.quantity), 0)) " +
+            "FROM Cart c LEFT JOIN c.cartItems i LEFT JOIN i.product p WHERE c.id = :cartId GROUP BY c.id, c.version")
+    CartSummary findSummaryById(Long cartId);
 }
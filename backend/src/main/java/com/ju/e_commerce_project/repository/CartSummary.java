@@ -0,0 +1,6 @@
+package com.ju.e_commerce_project.repository;
+
+import java.math.BigDecimal;
+
+// The version and totals of a cart, computed by the database without loading its lines
+public record CartSummary(long version, BigDecimal totalPrice, long totalItems) {}
@@ -0,0 +1,132 @@
+package com.ju.e_commerce_project.repository;
+
+import com.ju.e_commerce_project.cart.CartLine;
+import com.ju.e_commerce_project.model.Cart;
+import com.ju.e_commerce_project.model.CartItem;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Creates carts and adds to cart lines with single-statement upserts, so concurrent requests for
+ * the same user or the same (cart, product) never read-then-insert. MySQL gets
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE}; other databases get a standard {@code MERGE}. The
+ * write-behind cart store writes its flushes through here as well. Must be called inside a
+ * transaction.
+ */
+@Repository
+public class CartUpsertRepository {
+
+    private static final String MYSQL_CREATE_CART = "INSERT INTO carts (id, user_id, version, created_at, updated_at) VALUES (?, ?, 0, ?, ?) "
+            // Writing the row makes it visible to this transaction even under REPEATABLE READ
+            + "ON DUPLICATE KEY UPDATE updated_at = VALUES(updated_at)";
+    private static final String MERGE_CREATE_CART = "MERGE INTO carts t "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) s (id, user_id, created_at, updated_at) "
+            + "ON t.user_id = s.user_id "
+            + "WHEN NOT MATCHED THEN INSERT (id, user_id, version, created_at, updated_at) VALUES (s.id, s.user_id, 0, s.created_at, s.updated_at)";
+
+    private static final String MYSQL_ADD_QUANTITY = "INSERT INTO cart_items (id, cart_id, product_id, quantity, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), updated_at = VALUES(updated_at)";
+    private static final String MERGE_ADD_QUANTITY = "MERGE INTO cart_items t "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) "
+            + "s (id, cart_id, product_id, quantity, created_at, updated_at) "
+            + "ON t.cart_id = s.cart_id AND t.product_id = s.product_id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = t.quantity + s.quantity, updated_at = s.updated_at "
+            + "WHEN NOT MATCHED THEN INSERT (id, cart_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (s.id, s.cart_id, s.product_id, s.quantity, s.created_at, s.updated_at)";
+
+    private static final String MYSQL_PUT_LINE = "INSERT INTO cart_items (id, cart_id, product_id, quantity, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), updated_at = VALUES(updated_at)";
+    private static final String MERGE_PUT_LINE = "MERGE INTO cart_items t "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS TIMESTAMP), CAST(? AS TIMESTAMP))) "
+            + "s (id, cart_id, product_id, quantity, created_at, updated_at) "
+            + "ON t.id = s.id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = s.quantity, updated_at = s.updated_at "
+            + "WHEN NOT MATCHED THEN INSERT (id, cart_id, product_id, quantity, created_at, updated_at) "
+            + "VALUES (s.id, s.cart_id, s.product_id, s.quantity, s.created_at, s.updated_at)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private volatile Boolean mysql;
+
+    public CartUpsertRepository(JdbcTemplate jdbcTemplate, IdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+
+    public void createCartIfAbsent(Long userId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try {
+            jdbcTemplate.update(isMysql() ? MYSQL_CREATE_CART : MERGE_CREATE_CART, idAllocator.nextId(Cart.class), userId, now, now);
+        } catch (DuplicateKeyException e) {
+            // Another request inserted the cart between this MERGE's check and its insert; there is
+            // no cart row yet to serialize on, so this is the one race the MERGE can lose
+        }
+    }
+
+    // ON DUPLICATE KEY UPDATE is atomic on its own. A MERGE is not: two that both find no line both
+    // insert, and one fails on the unique key. It is only correct because CartService bumps the cart
+    // version first, which holds the cart row lock (see CartRepository.incrementVersion)
+    public void addQuantity(Long cartId, Long productId, int quantity) {
+        jdbcTemplate.update(isMysql() ? MYSQL_ADD_QUANTITY : MERGE_ADD_QUANTITY, lineArguments(cartId, productId, quantity));
+    }
+
+    // The same upsert for many lines, sent as one JDBC batch
+    public void addQuantities(Long cartId, Map<Long, Integer> quantitiesByProduct) {
+        if (quantitiesByProduct.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, quantity) -> batch.add(lineArguments(cartId, productId, quantity)));
+        jdbcTemplate.batchUpdate(isMysql() ? MYSQL_ADD_QUANTITY : MERGE_ADD_QUANTITY, batch);
+    }
+
+    // Writes lines with the ids and quantities given, as the write-behind cart store holds them
+    public void putLines(Map<Long, ? extends Collection<CartLine>> linesByCart) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>();
+        linesByCart.forEach((cartId, lines) -> lines.forEach(line ->
+                batch.add(new Object[]{line.id(), cartId, line.productId(), line.quantity(), now, now})));
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(isMysql() ? MYSQL_PUT_LINE : MERGE_PUT_LINE, batch);
+        }
+    }
+
+    public void deleteLines(Collection<Long> lineIds) {
+        if (!lineIds.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM cart_items WHERE id = ?", lineIds.stream().map(id -> new Object[]{id}).toList());
+        }
+    }
+
+    public void setVersions(Map<Long, Long> versionsByCart) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<Object[]> batch = new ArrayList<>(versionsByCart.size());
+        versionsByCart.forEach((cartId, version) -> batch.add(new Object[]{version, now, cartId}));
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE carts SET version = ?, updated_at = ? WHERE id = ?", batch);
+        }
+    }
+
+    private Object[] lineArguments(Long cartId, Long productId, int quantity) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        return new Object[]{idAllocator.nextId(CartItem.class), cartId, productId, quantity, now, now};
+    }
+
+    private boolean isMysql() {
+        Boolean result = mysql;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+            mysql = result;
+        }
+        return result;
+    }
+}
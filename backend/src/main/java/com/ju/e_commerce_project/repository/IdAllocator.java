@@ -0,0 +1,28 @@
+package com.ju.e_commerce_project.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands out ids from an entity's own id generator, for rows written with plain JDBC. They come
+ * from the same in-memory blocks as the ids of entities saved through JPA, so the two never clash.
+ * Must be called inside a transaction.
+ */
+@Component
+public class IdAllocator {
+
+    private final EntityManager entityManager;
+
+    public IdAllocator(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    public long nextId(Class<?> entityClass) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(entityClass).getGenerator();
+        return ((Number) generator.generate(session, null)).longValue();
+    }
+}
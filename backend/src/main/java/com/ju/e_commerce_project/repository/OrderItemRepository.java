@@ -1,9 +1,15 @@
 package com.ju.e_commerce_project.repository;
 
 import com.ju.e_commerce_project.model.OrderItem;
+import com.ju.e_commerce_project.search.ProductPopularity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+    @Query("SELECT new com.ju.e_commerce_project.search.ProductPopularity(oi.product.id, SUM(oi.quantity)) FROM OrderItem oi GROUP BY oi.product.id")
+    List<ProductPopularity> findPopularity();
 }
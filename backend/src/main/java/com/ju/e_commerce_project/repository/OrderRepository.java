@@ -15,4 +15,7 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByUserWithOrderItemsOrderByCreatedAtDesc(User user);
 
     List<Order> findByUserOrderByCreatedAtDesc(User user);
+
+    @Query("SELECT new com.ju.e_commerce_project.repository.ResourceVersion(MAX(o.updatedAt), COUNT(o)) FROM Order o WHERE o.user.username = :username")
+    ResourceVersion findVersionByUsername(String username);
 }
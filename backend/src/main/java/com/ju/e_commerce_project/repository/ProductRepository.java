@@ -1,13 +1,72 @@
 package com.ju.e_commerce_project.repository;
 
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
 import com.ju.e_commerce_project.model.Product;
-import org.springframework.data.repository.CrudRepository;
+import com.ju.e_commerce_project.search.ProductDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Long> {
-    List<Product> findByCategoryId(Long categoryId);
-    List<Product> findBySellerUsername(String username);
+public interface ProductRepository extends JpaRepository<Product, Long> {
+    // Listings are projected straight into responses: no managed entities and no seller rows are loaded
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductResponse(p.id, p.name, p.description, p.price, c.name) " +
+            "FROM Product p JOIN p.category c WHERE p.category.id = :categoryId AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findResponsesByCategory(Long categoryId, Long afterId, Limit limit);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductResponse(p.id, p.name, CAST(NULL AS String), p.price, c.name) " +
+            "FROM Product p JOIN p.category c WHERE p.category.id = :categoryId AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findSummariesByCategory(Long categoryId, Long afterId, Limit limit);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductResponse(p.id, p.name, p.description, p.price, c.name) " +
+            "FROM Product p JOIN p.category c JOIN p.seller s WHERE s.username = :username AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findResponsesBySeller(String username, Long afterId, Limit limit);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductResponse(p.id, p.name, CAST(NULL AS String), p.price, c.name) " +
+            "FROM Product p JOIN p.category c JOIN p.seller s WHERE s.username = :username AND p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findSummariesBySeller(String username, Long afterId, Limit limit);
+
+    // Feeds the search index rebuild in id order, one keyset batch at a time
+    @Query("SELECT new com.ju.e_commerce_project.search.ProductDocument(p.id, p.name, p.description, p.price, c.id, c.name, s.username) " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.seller s WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductDocument> findDocuments(Long afterId, Limit limit);
+
+    @Query("SELECT new com.ju.e_commerce_project.search.ProductDocument(p.id, p.name, p.description, p.price, c.id, c.name, s.username) " +
+            "FROM Product p LEFT JOIN p.category c LEFT JOIN p.seller s WHERE p.id IN :ids")
+    List<ProductDocument> findDocumentsByIds(Collection<Long> ids);
+
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductSuggestion(p.id, p.name) FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductSuggestion> findSuggestions(Long afterId, Limit limit);
+
+    // Exports read the rows through a cursor; the caller must close the stream inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.seller ORDER BY p.id")
+    Stream<Product> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category JOIN FETCH p.seller s WHERE s.username = :username ORDER BY p.id")
+    Stream<Product> streamBySeller(String username);
+
+    // Existence check for callers that only need references: the eager seller and category are not loaded
+    @Query("SELECT new com.ju.e_commerce_project.dto.response.ProductResponse(p.id, p.name, p.description, p.price, c.name) " +
+            "FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIds(Collection<Long> ids);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("SELECT new com.ju.e_commerce_project.repository.ResourceVersion(MAX(p.updatedAt), COUNT(p)) FROM Product p WHERE p.category.id = :categoryId")
+    ResourceVersion findVersionByCategory(Long categoryId);
+
+    @Query("SELECT new com.ju.e_commerce_project.repository.ResourceVersion(MAX(p.updatedAt), COUNT(p)) FROM Product p WHERE p.seller.username = :username")
+    ResourceVersion findVersionBySeller(String username);
 }
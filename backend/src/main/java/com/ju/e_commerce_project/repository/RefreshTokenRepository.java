@@ -0,0 +1,32 @@
+package com.ju.e_commerce_project.repository;
+
+import com.ju.e_commerce_project.model.RefreshToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends CrudRepository<RefreshToken, Long> {
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.id = :id")
+    int deleteTokenById(Long id);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.tokenHash = :tokenHash")
+    int deleteByTokenHash(String tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.user.userId = :userId")
+    int deleteByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiresAt < :now")
+    int deleteExpired(Date now);
+}
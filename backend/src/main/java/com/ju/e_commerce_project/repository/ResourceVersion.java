@@ -0,0 +1,23 @@
+package com.ju.e_commerce_project.repository;
+
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * Cheap fingerprint of a set of rows: the latest update time and the row count, which also changes
+ * when a row is deleted. Used to answer conditional GETs without loading the rows themselves. Only
+ * as an ETag: the latest update time alone stays the same when a row is deleted or moved away, so it
+ * is not sent as Last-Modified.
+ */
+public record ResourceVersion(Date lastModified, Long count) {
+
+    public long lastModifiedMillis() {
+        return lastModified != null ? lastModified.getTime() : 0L;
+    }
+
+    // Strong ETag; the variant distinguishes representations of the same rows (page, fields, ...)
+    public String eTag(Object... variant) {
+        return "\"" + Long.toHexString(lastModifiedMillis()) + "-" + Long.toHexString(count) + "-"
+                + Integer.toHexString(Arrays.hashCode(variant)) + "\"";
+    }
+}
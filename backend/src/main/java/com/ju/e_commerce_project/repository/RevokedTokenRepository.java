@@ -0,0 +1,23 @@
+package com.ju.e_commerce_project.repository;
+
+import com.ju.e_commerce_project.model.RevokedToken;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends CrudRepository<RevokedToken, String> {
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveJtis(Date now);
+
+    @Query("SELECT r.jti FROM RevokedToken r WHERE r.revokedAt >= :since AND r.expiresAt > :now")
+    List<String> findActiveJtisRevokedSince(Date since, Date now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(Date now);
+}
@@ -1,6 +1,8 @@
 package com.ju.e_commerce_project.repository;
 
 import com.ju.e_commerce_project.model.User;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +13,11 @@ public interface UserRepository extends CrudRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.userId = :userId")
+    Optional<Integer> findTokenVersionByUserId(Long userId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.userId = :userId")
+    int incrementTokenVersion(Long userId);
 }
@@ -0,0 +1,239 @@
+package com.ju.e_commerce_project.search;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column store of the facet fields of indexed products, addressed by document number.
+ * <p>
+ * Categories and price ranges keep one bitset per value for filtering. Sellers are too many for a
+ * bitset each; they keep the list of their document numbers instead, which becomes a bitset only
+ * when a query filters on them. Live counts per value are updated on every change, so facets that
+ * no filter narrows are answered without looking at any document.
+ */
+final class FacetColumns {
+
+    static final long[] PRICE_BOUNDS_CENTS = {0, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000};
+    private static final BigDecimal MAX_PRICE = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+    private static final BigDecimal HALF_CENT = new BigDecimal("0.005");
+
+    final Dictionary<Long> categories = new Dictionary<>();
+    final Dictionary<String> sellers = new Dictionary<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private final List<BitSet> categoryBits = new ArrayList<>();
+    private final BitSet[] priceBits = new BitSet[PRICE_BOUNDS_CENTS.length];
+    // Appended to on every change; entries of dead documents are dropped when the segment is compacted
+    private final List<DocList> sellerDocs = new ArrayList<>();
+
+    int[] categoryOrdinals = new int[1024];
+    int[] sellerOrdinals = new int[1024];
+    long[] priceCents = new long[1024];
+    long[] productIds = new long[1024];
+
+    int[] categoryTotals = new int[16];
+    int[] sellerTotals = new int[16];
+    final int[] priceTotals = new int[PRICE_BOUNDS_CENTS.length];
+
+    FacetColumns() {
+        Arrays.setAll(priceBits, bucket -> new BitSet());
+    }
+
+    void set(int doc, ProductDocument document) {
+        if (doc >= productIds.length) {
+            int capacity = Math.max(productIds.length * 2, doc + 1);
+            categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+            sellerOrdinals = Arrays.copyOf(sellerOrdinals, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            productIds = Arrays.copyOf(productIds, capacity);
+        }
+        int category = document.categoryId() == null ? -1 : categories.ordinal(document.categoryId());
+        if (category == categoryBits.size()) {
+            categoryNames.add(document.categoryName());
+            categoryBits.add(new BitSet());
+            categoryTotals = grow(categoryTotals, category);
+        } else if (category >= 0) {
+            categoryNames.set(category, document.categoryName());
+        }
+        int seller = document.sellerUsername() == null ? -1 : sellers.ordinal(document.sellerUsername());
+        if (seller == sellerDocs.size()) {
+            sellerDocs.add(new DocList());
+            sellerTotals = grow(sellerTotals, seller);
+        }
+        if (seller >= 0) {
+            sellerDocs.get(seller).add(doc);
+        }
+
+        categoryOrdinals[doc] = category;
+        sellerOrdinals[doc] = seller;
+        priceCents[doc] = toCents(document.price());
+        productIds[doc] = document.id();
+        count(doc, 1);
+    }
+
+    void clear(int doc) {
+        count(doc, -1);
+    }
+
+    // Moves the columns of the live documents to their compacted numbers; all of them are live afterwards
+    void renumber(int[] renumbered, int docCount) {
+        for (int doc = 0; doc < renumbered.length; doc++) {
+            int target = renumbered[doc];
+            if (target >= 0) {
+                categoryOrdinals[target] = categoryOrdinals[doc];
+                sellerOrdinals[target] = sellerOrdinals[doc];
+                priceCents[target] = priceCents[doc];
+                productIds[target] = productIds[doc];
+            }
+        }
+        categoryBits.forEach(BitSet::clear);
+        Arrays.stream(priceBits).forEach(BitSet::clear);
+        sellerDocs.forEach(DocList::clear);
+        for (int doc = 0; doc < docCount; doc++) {
+            if (categoryOrdinals[doc] >= 0) {
+                categoryBits.get(categoryOrdinals[doc]).set(doc);
+            }
+            if (sellerOrdinals[doc] >= 0) {
+                sellerDocs.get(sellerOrdinals[doc]).add(doc);
+            }
+            priceBits[priceBucket(priceCents[doc])].set(doc);
+        }
+    }
+
+    String categoryName(int category) {
+        return categoryNames.get(category);
+    }
+
+    BitSet categoryMask(Set<Long> categoryIds) {
+        BitSet mask = new BitSet();
+        for (Long categoryId : categoryIds) {
+            Integer category = categories.find(categoryId);
+            if (category != null) {
+                mask.or(categoryBits.get(category));
+            }
+        }
+        return mask;
+    }
+
+    // Every document in a bucket that overlaps the range; callers still check the exact price
+    BitSet priceMask(long minCents, long maxCents) {
+        BitSet mask = new BitSet();
+        for (int bucket = 0; bucket < PRICE_BOUNDS_CENTS.length; bucket++) {
+            long bucketEnd = bucket + 1 < PRICE_BOUNDS_CENTS.length ? PRICE_BOUNDS_CENTS[bucket + 1] : Long.MAX_VALUE;
+            if (PRICE_BOUNDS_CENTS[bucket] <= maxCents && bucketEnd > minCents) {
+                mask.or(priceBits[bucket]);
+            }
+        }
+        return mask;
+    }
+
+    // Dead documents stay listed until compaction; the live set leaves them out
+    BitSet sellerMask(Set<String> usernames, BitSet live) {
+        BitSet mask = new BitSet();
+        for (String username : usernames) {
+            Integer seller = sellers.find(username);
+            if (seller == null) {
+                continue;
+            }
+            DocList docs = sellerDocs.get(seller);
+            for (int i = 0; i < docs.size; i++) {
+                mask.set(docs.docs[i]);
+            }
+        }
+        mask.and(live);
+        return mask;
+    }
+
+    static int priceBucket(long cents) {
+        int bucket = PRICE_BOUNDS_CENTS.length - 1;
+        while (bucket > 0 && cents < PRICE_BOUNDS_CENTS[bucket]) {
+            bucket--;
+        }
+        return bucket;
+    }
+
+    // Saturates instead of wrapping, and checks the range before setScale so a huge exponent stays cheap
+    static long toCents(BigDecimal price) {
+        if (price == null) {
+            return 0;
+        }
+        if (price.compareTo(MAX_PRICE) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (price.compareTo(MAX_PRICE.negate()) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        if (price.abs().compareTo(HALF_CENT) < 0) {
+            return 0;
+        }
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private void count(int doc, int delta) {
+        int category = categoryOrdinals[doc];
+        if (category >= 0) {
+            categoryBits.get(category).set(doc, delta > 0);
+            categoryTotals[category] += delta;
+        }
+        int seller = sellerOrdinals[doc];
+        if (seller >= 0) {
+            sellerTotals[seller] += delta;
+        }
+        int bucket = priceBucket(priceCents[doc]);
+        priceBits[bucket].set(doc, delta > 0);
+        priceTotals[bucket] += delta;
+    }
+
+    private static int[] grow(int[] counts, int index) {
+        return index < counts.length ? counts : Arrays.copyOf(counts, Math.max(counts.length * 2, index + 1));
+    }
+
+    private static final class DocList {
+
+        private int[] docs = new int[4];
+        private int size;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    // Dense ordinals for facet values, so counts are array slots rather than map entries
+    static final class Dictionary<K> {
+
+        private final Map<K, Integer> ordinals = new HashMap<>();
+        private final List<K> values = new ArrayList<>();
+
+        int ordinal(K value) {
+            return ordinals.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        Integer find(K value) {
+            return ordinals.get(value);
+        }
+
+        K value(int ordinal) {
+            return values.get(ordinal);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ju.e_commerce_project.search;
+
+import com.ju.e_commerce_project.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * The fields of a product the search index needs, copied out of the entity so an update can be
+ * applied after its transaction commits.
+ */
+public record ProductDocument(
+        Long id,
+        String name,
+        String description,
+        BigDecimal price,
+        Long categoryId,
+        String categoryName,
+        String sellerUsername
+) {
+    public static ProductDocument of(Product product) {
+        return new ProductDocument(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getSeller() != null ? product.getSeller().getUsername() : null
+        );
+    }
+}
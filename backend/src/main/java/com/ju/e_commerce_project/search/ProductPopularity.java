@@ -0,0 +1,6 @@
+package com.ju.e_commerce_project.search;
+
+public record ProductPopularity(
+        Long productId,
+        Long unitsSold
+) {}
@@ -0,0 +1,19 @@
+package com.ju.e_commerce_project.search;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * A catalog browse request. Null or empty filters match everything; {@code text} is optional and,
+ * when present, restricts the results to matching products.
+ */
+public record ProductQuery(
+        String text,
+        Set<Long> categoryIds,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Set<String> sellers,
+        ProductSort sort,
+        int offset,
+        int limit
+) {}
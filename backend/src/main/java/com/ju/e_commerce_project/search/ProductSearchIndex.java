@@ -0,0 +1,617 @@
+package com.ju.e_commerce_project.search;
+
+import com.ju.e_commerce_project.dto.response.FacetCount;
+import com.ju.e_commerce_project.dto.response.ProductBrowseResponse;
+import com.ju.e_commerce_project.dto.response.ProductFacets;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSearchResponse;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over product names and descriptions, ranked with BM25.
+ * <p>
+ * Every indexed product gets a dense document number; postings lists hold document numbers in
+ * ascending order with the term frequency next to them. An update indexes the product under a new
+ * document number and marks the old one dead, and dead entries are compacted away once they make
+ * up half of the postings. The index is rebuilt from the database when the application starts and
+ * kept current by {@link #index} and {@link #remove}, which apply once the surrounding transaction
+ * commits.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    // A term in the name counts as much as this many occurrences in the description
+    private static final int NAME_WEIGHT = 3;
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_SELLER_FACETS = 20;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+
+    private final ProductRepository productRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Score accumulators are reused across queries; the pool grows to the number of concurrent searches
+    private final Queue<Scratch> scratchPool = new ConcurrentLinkedQueue<>();
+    private Segment segment = new Segment();
+    // Changes made while a rebuild reads the database; replayed onto the rebuilt segment
+    private List<Consumer<Segment>> changesDuringRebuild;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Segment rebuilt = new Segment();
+        try {
+            long afterId = 0;
+            List<ProductDocument> batch;
+            do {
+                batch = productRepository.findDocuments(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (ProductDocument document : batch) {
+                    rebuilt.add(document);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            segment = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(ProductDocument document) {
+        apply(segment -> segment.add(document));
+    }
+
+    // One write for a whole batch, so a bulk import does not take the lock per product
+    public void indexAll(List<ProductDocument> documents) {
+        List<ProductDocument> batch = List.copyOf(documents);
+        apply(segment -> batch.forEach(segment::add));
+    }
+
+    public void remove(Long productId) {
+        apply(segment -> segment.remove(productId));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} products for the query. Any query term may match; when the
+     * query ends inside a word, that last word also matches the most common terms it is a prefix of.
+     */
+    public ProductSearchResponse search(String query, int limit) {
+        TextQuery text = TextQuery.parse(query);
+        if (text == null) {
+            return new ProductSearchResponse(List.of(), 0);
+        }
+        Scratch scratch = borrowScratch();
+        lock.readLock().lock();
+        try {
+            return segment.search(text, limit, scratch);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    /**
+     * Filters, sorts and pages the catalog and counts the products per category, price range and
+     * seller. Each facet's counts apply every filter except its own, so a client can show the
+     * alternatives to the values already selected. {@code next} is left for the caller to fill in.
+     */
+    public ProductBrowseResponse browse(ProductQuery query) {
+        TextQuery text = TextQuery.parse(query.text());
+        Scratch scratch = borrowScratch();
+        lock.readLock().lock();
+        try {
+            return segment.browse(query, text, scratch);
+        } finally {
+            lock.readLock().unlock();
+            scratchPool.offer(scratch);
+        }
+    }
+
+    private Scratch borrowScratch() {
+        Scratch scratch = scratchPool.poll();
+        return scratch != null ? scratch : new Scratch();
+    }
+
+    private void apply(Consumer<Segment> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(change);
+                }
+            });
+        } else {
+            write(change);
+        }
+    }
+
+    private void write(Consumer<Segment> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(segment);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Segment {
+
+        private final TreeMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Long, Integer> docByProduct = new HashMap<>();
+        private final BitSet live = new BitSet();
+        private final FacetColumns facets = new FacetColumns();
+        private ProductResponse[] summaries = new ProductResponse[1024];
+        private int[] lengths = new int[1024];
+        private int[] termCounts = new int[1024];
+        // BM25 length normalization per document, computed against normAverageLength
+        private float[] norms = new float[1024];
+        private float normAverageLength = 1;
+        private int docCount;
+        private int liveCount;
+        private long totalLength;
+        private long totalPostings;
+        private long deadPostings;
+
+        void add(ProductDocument document) {
+            remove(document.id());
+
+            Map<String, Integer> frequencies = new HashMap<>();
+            for (String token : Tokenizer.tokenize(document.name())) {
+                frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+            }
+            for (String token : Tokenizer.tokenize(document.description())) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+
+            int doc = docCount++;
+            if (doc == summaries.length) {
+                int capacity = summaries.length * 2;
+                summaries = Arrays.copyOf(summaries, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                termCounts = Arrays.copyOf(termCounts, capacity);
+                norms = Arrays.copyOf(norms, capacity);
+            }
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            summaries[doc] = new ProductResponse(document.id(), document.name(), null, document.price(), document.categoryName());
+            lengths[doc] = length;
+            termCounts[doc] = frequencies.size();
+            live.set(doc);
+            facets.set(doc, document);
+            docByProduct.put(document.id(), doc);
+            liveCount++;
+            totalLength += length;
+            totalPostings += frequencies.size();
+            norms[doc] = norm(length);
+            renormalizeIfDrifted();
+        }
+
+        void remove(Long productId) {
+            Integer doc = docByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            live.clear(doc);
+            facets.clear(doc);
+            summaries[doc] = null;
+            liveCount--;
+            totalLength -= lengths[doc];
+            deadPostings += termCounts[doc];
+            if (deadPostings * 2 > totalPostings) {
+                compact();
+            }
+            renormalizeIfDrifted();
+        }
+
+        private float norm(int length) {
+            return K1 * (1 - B + B * length / normAverageLength);
+        }
+
+        // Norms are recomputed only once the average document length has moved by more than 5%
+        private void renormalizeIfDrifted() {
+            float averageLength = liveCount == 0 ? 1 : (float) totalLength / liveCount;
+            if (Math.abs(averageLength - normAverageLength) > normAverageLength * 0.05f) {
+                normAverageLength = averageLength;
+                for (int doc = 0; doc < docCount; doc++) {
+                    norms[doc] = norm(lengths[doc]);
+                }
+            }
+        }
+
+        ProductSearchResponse search(TextQuery text, int limit, Scratch scratch) {
+            scratch.reset(docCount);
+            try {
+                scoreText(text, scratch);
+                TopDocs top = new TopDocs(limit, byRelevance(scratch.scores));
+                int total = 0;
+                for (int i = 0; i < scratch.matchedCount; i++) {
+                    int doc = scratch.matched[i];
+                    if (live.get(doc)) {
+                        total++;
+                        top.offer(doc);
+                    }
+                }
+                return new ProductSearchResponse(summaries(top.drain(), 0, limit), total);
+            } finally {
+                scratch.clear();
+            }
+        }
+
+        ProductBrowseResponse browse(ProductQuery query, TextQuery text, Scratch scratch) {
+            scratch.reset(docCount);
+            try {
+                BitSet base = live;
+                if (text != null) {
+                    scoreText(text, scratch);
+                    base = new BitSet(docCount);
+                    for (int i = 0; i < scratch.matchedCount; i++) {
+                        base.set(scratch.matched[i]);
+                    }
+                    base.and(live);
+                }
+
+                BitSet categoryMask = isEmpty(query.categoryIds()) ? null : facets.categoryMask(query.categoryIds());
+                BitSet sellerMask = isEmpty(query.sellers()) ? null : facets.sellerMask(query.sellers(), live);
+                long minCents = query.minPrice() == null ? Long.MIN_VALUE : FacetColumns.toCents(query.minPrice());
+                long maxCents = query.maxPrice() == null ? Long.MAX_VALUE : FacetColumns.toCents(query.maxPrice());
+                BitSet priceMask = query.minPrice() == null && query.maxPrice() == null ? null : facets.priceMask(minCents, maxCents);
+
+                // With no text and no other facet filtered, a facet's counts are its live totals
+                boolean categoryTotals = text == null && sellerMask == null && priceMask == null;
+                boolean sellerTotals = text == null && categoryMask == null && priceMask == null;
+                boolean priceTotals = text == null && categoryMask == null && sellerMask == null;
+
+                // Documents that are in the results or count towards at least one facet
+                BitSet domain = intersect(base, categoryMask, sellerMask, priceMask);
+                if (!categoryTotals) {
+                    domain.or(intersect(base, sellerMask, priceMask));
+                }
+                if (!sellerTotals) {
+                    domain.or(intersect(base, categoryMask, priceMask));
+                }
+                if (!priceTotals) {
+                    domain.or(intersect(base, categoryMask, sellerMask));
+                }
+
+                int[] categoryCounts = categoryTotals ? facets.categoryTotals : new int[facets.categories.size()];
+                int[] sellerCounts = sellerTotals ? facets.sellerTotals : new int[facets.sellers.size()];
+                int[] priceCounts = priceTotals ? facets.priceTotals : new int[FacetColumns.PRICE_BOUNDS_CENTS.length];
+                // Capped by the documents that can match, so a far-off cursor cannot size the heap
+                TopDocs top = new TopDocs((int) Math.min((long) query.offset() + query.limit(), domain.cardinality()), order(query.sort(), text != null, scratch.scores));
+                int total = 0;
+                // Newer documents have higher numbers; walking down lets most of them be rejected by the heap with one comparison
+                for (int doc = domain.previousSetBit(docCount - 1); doc >= 0; doc = domain.previousSetBit(doc - 1)) {
+                    boolean inCategory = categoryMask == null || categoryMask.get(doc);
+                    boolean bySeller = sellerMask == null || sellerMask.get(doc);
+                    long price = facets.priceCents[doc];
+                    boolean inPriceRange = price >= minCents && price <= maxCents;
+                    if (inCategory && bySeller && inPriceRange) {
+                        total++;
+                        top.offer(doc);
+                    }
+                    if (!categoryTotals && bySeller && inPriceRange && facets.categoryOrdinals[doc] >= 0) {
+                        categoryCounts[facets.categoryOrdinals[doc]]++;
+                    }
+                    if (!sellerTotals && inCategory && inPriceRange && facets.sellerOrdinals[doc] >= 0) {
+                        sellerCounts[facets.sellerOrdinals[doc]]++;
+                    }
+                    if (!priceTotals && inCategory && bySeller) {
+                        priceCounts[FacetColumns.priceBucket(price)]++;
+                    }
+                }
+
+                ProductFacets productFacets = new ProductFacets(
+                        categoryFacet(categoryCounts), priceFacet(priceCounts), sellerFacet(sellerCounts));
+                return new ProductBrowseResponse(summaries(top.drain(), query.offset(), query.limit()), total, null, productFacets);
+            } finally {
+                scratch.clear();
+            }
+        }
+
+        private void scoreText(TextQuery text, Scratch scratch) {
+            for (String term : text.exactTerms()) {
+                Postings termPostings = postings.get(term);
+                if (termPostings != null) {
+                    score(termPostings, scratch);
+                }
+            }
+            if (text.prefix() != null) {
+                for (Postings termPostings : prefixExpansions(text.prefix(), text.exactTerms())) {
+                    score(termPostings, scratch);
+                }
+            }
+        }
+
+        private void score(Postings termPostings, Scratch scratch) {
+            int documentFrequency = termPostings.size;
+            // Dead postings are counted until compaction, which can push the idf of very common terms below zero
+            float idf = Math.max((float) Math.log(1 + (liveCount - documentFrequency + 0.5) / (documentFrequency + 0.5)), Float.MIN_NORMAL);
+            float weight = idf * (K1 + 1);
+            float[] scores = scratch.scores;
+            int[] docs = termPostings.docs;
+            int[] frequencies = termPostings.frequencies;
+            for (int i = 0; i < termPostings.size; i++) {
+                int doc = docs[i];
+                int frequency = frequencies[i];
+                if (scores[doc] == 0) {
+                    scratch.matched(doc);
+                }
+                scores[doc] += weight * frequency / (frequency + norms[doc]);
+            }
+        }
+
+        private TopDocs.Order order(ProductSort sort, boolean scored, float[] scores) {
+            long[] productIds = facets.productIds;
+            long[] prices = facets.priceCents;
+            TopDocs.Order newest = (doc, other) -> productIds[doc] < productIds[other];
+            if (sort == null) {
+                sort = scored ? ProductSort.RELEVANCE : ProductSort.NEWEST;
+            }
+            return switch (sort) {
+                case RELEVANCE -> scored ? byRelevance(scores) : newest;
+                case NEWEST -> newest;
+                case PRICE_ASC -> (doc, other) -> prices[doc] > prices[other] || (prices[doc] == prices[other] && newest.ranksBelow(doc, other));
+                case PRICE_DESC -> (doc, other) -> prices[doc] < prices[other] || (prices[doc] == prices[other] && newest.ranksBelow(doc, other));
+            };
+        }
+
+        // Ties go to the older document
+        private static TopDocs.Order byRelevance(float[] scores) {
+            return (doc, other) -> scores[doc] < scores[other] || (scores[doc] == scores[other] && doc > other);
+        }
+
+        private List<ProductResponse> summaries(int[] ranked, int offset, int limit) {
+            List<ProductResponse> items = new ArrayList<>(limit);
+            for (int i = offset; i < ranked.length && i < offset + limit; i++) {
+                items.add(summaries[ranked[i]]);
+            }
+            return List.copyOf(items);
+        }
+
+        private List<FacetCount> categoryFacet(int[] counts) {
+            List<FacetCount> values = new ArrayList<>();
+            for (int category = 0; category < facets.categories.size(); category++) {
+                if (counts[category] > 0) {
+                    values.add(new FacetCount(String.valueOf(facets.categories.value(category)), facets.categoryName(category), counts[category]));
+                }
+            }
+            values.sort(Comparator.comparingInt(FacetCount::count).reversed());
+            return List.copyOf(values);
+        }
+
+        private List<FacetCount> sellerFacet(int[] counts) {
+            TopDocs top = new TopDocs(MAX_SELLER_FACETS, (seller, other) -> counts[seller] < counts[other] || (counts[seller] == counts[other] && seller > other));
+            for (int seller = 0; seller < facets.sellers.size(); seller++) {
+                if (counts[seller] > 0) {
+                    top.offer(seller);
+                }
+            }
+            List<FacetCount> values = new ArrayList<>();
+            for (int seller : top.drain()) {
+                values.add(new FacetCount(facets.sellers.value(seller), null, counts[seller]));
+            }
+            return List.copyOf(values);
+        }
+
+        private static List<FacetCount> priceFacet(int[] counts) {
+            long[] bounds = FacetColumns.PRICE_BOUNDS_CENTS;
+            List<FacetCount> values = new ArrayList<>();
+            for (int bucket = 0; bucket < bounds.length; bucket++) {
+                String range = BigDecimal.valueOf(bounds[bucket], 2).stripTrailingZeros().toPlainString() + "-"
+                        + (bucket + 1 < bounds.length ? BigDecimal.valueOf(bounds[bucket + 1], 2).stripTrailingZeros().toPlainString() : "");
+                values.add(new FacetCount(range, null, counts[bucket]));
+            }
+            return List.copyOf(values);
+        }
+
+        private static BitSet intersect(BitSet base, BitSet... masks) {
+            BitSet result = (BitSet) base.clone();
+            for (BitSet mask : masks) {
+                if (mask != null) {
+                    result.and(mask);
+                }
+            }
+            return result;
+        }
+
+        private static boolean isEmpty(Collection<?> values) {
+            return values == null || values.isEmpty();
+        }
+
+        // The terms starting with the prefix that occur in the most documents
+        private List<Postings> prefixExpansions(String prefix, List<String> exactTerms) {
+            PriorityQueue<Postings> mostFrequent = new PriorityQueue<>(Comparator.comparingInt(p -> p.size));
+            for (Map.Entry<String, Postings> entry : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+                if (exactTerms.contains(entry.getKey())) {
+                    continue;
+                }
+                Postings termPostings = entry.getValue();
+                if (mostFrequent.size() < MAX_PREFIX_EXPANSIONS) {
+                    mostFrequent.add(termPostings);
+                } else if (termPostings.size > mostFrequent.peek().size) {
+                    mostFrequent.poll();
+                    mostFrequent.add(termPostings);
+                }
+            }
+            return new ArrayList<>(mostFrequent);
+        }
+
+        // Renumbers the live documents densely and drops dead postings and terms left without any
+        private void compact() {
+            int[] renumbered = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (live.get(doc)) {
+                    renumbered[doc] = next;
+                    summaries[next] = summaries[doc];
+                    lengths[next] = lengths[doc];
+                    termCounts[next] = termCounts[doc];
+                    norms[next] = norms[doc];
+                    next++;
+                } else {
+                    renumbered[doc] = -1;
+                }
+            }
+            Arrays.fill(summaries, next, docCount, null);
+
+            Iterator<Postings> iterator = postings.values().iterator();
+            while (iterator.hasNext()) {
+                Postings termPostings = iterator.next();
+                termPostings.renumber(renumbered);
+                if (termPostings.size == 0) {
+                    iterator.remove();
+                }
+            }
+            docByProduct.replaceAll((productId, doc) -> renumbered[doc]);
+            facets.renumber(renumbered, next);
+
+            live.clear();
+            live.set(0, next);
+            docCount = next;
+            totalPostings -= deadPostings;
+            deadPostings = 0;
+        }
+    }
+
+    private record TextQuery(List<String> exactTerms, String prefix) {
+
+        static TextQuery parse(String query) {
+            Set<String> terms = new LinkedHashSet<>(Tokenizer.tokenize(query));
+            if (terms.isEmpty()) {
+                return null;
+            }
+            List<String> exactTerms = new ArrayList<>(terms);
+            String prefix = Tokenizer.endsInsideToken(query) ? exactTerms.remove(exactTerms.size() - 1) : null;
+            if (exactTerms.size() > MAX_QUERY_TERMS) {
+                exactTerms = exactTerms.subList(0, MAX_QUERY_TERMS);
+            }
+            return new TextQuery(exactTerms, prefix);
+        }
+    }
+
+    private static final class Postings {
+
+        private int[] docs = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        // The mapping preserves order, so the list stays sorted
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    // Score accumulator sized to the segment, so a query over a million documents allocates nothing that large
+    private static final class Scratch {
+
+        private float[] scores = new float[0];
+        private int[] matched = new int[64];
+        private int matchedCount;
+
+        void reset(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[docCount];
+            }
+        }
+
+        void matched(int doc) {
+            if (matchedCount == matched.length) {
+                matched = Arrays.copyOf(matched, matchedCount * 2);
+            }
+            matched[matchedCount++] = doc;
+        }
+
+        // Only the touched entries are zeroed
+        void clear() {
+            for (int i = 0; i < matchedCount; i++) {
+                scores[matched[i]] = 0;
+            }
+            matchedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.ju.e_commerce_project.search;
+
+import java.util.Locale;
+
+public enum ProductSort {
+    RELEVANCE,
+    NEWEST,
+    PRICE_ASC,
+    PRICE_DESC;
+
+    // Accepts the request parameter spelling, e.g. "price_asc"; returns null for unknown values
+    public static ProductSort fromParameter(String value) {
+        for (ProductSort sort : values()) {
+            if (sort.name().equals(value.toUpperCase(Locale.ROOT))) {
+                return sort;
+            }
+        }
+        return null;
+    }
+}
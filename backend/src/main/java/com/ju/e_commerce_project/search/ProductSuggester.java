@@ -0,0 +1,463 @@
+package com.ju.e_commerce_project.search;
+
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.repository.OrderItemRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Product name autocomplete over a radix trie. A product is reachable from the start of its name
+ * and from the start of each of its next few words, and every node caches the most popular
+ * products below it, so a lookup is a walk down the prefix and nothing else.
+ * <p>
+ * Popularity is the number of units sold. The trie is built from the database when the
+ * application starts; product writes and placed orders update it once their transaction commits.
+ */
+@Component
+public class ProductSuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final int MAX_INDEXED_WORDS = 4;
+    private static final int MAX_KEY_LENGTH = 100;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final Comparator<Entry> BY_POPULARITY = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparing(Entry::name)
+            .thenComparingLong(Entry::productId);
+
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Trie trie = new Trie();
+    // Changes made while a rebuild reads the database; replayed onto the rebuilt trie
+    private List<Consumer<Trie>> changesDuringRebuild;
+
+    public ProductSuggester(ProductRepository productRepository, OrderItemRepository orderItemRepository) {
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Trie rebuilt = new Trie();
+        try {
+            Map<Long, Long> unitsSold = new HashMap<>();
+            for (ProductPopularity popularity : orderItemRepository.findPopularity()) {
+                unitsSold.put(popularity.productId(), popularity.unitsSold());
+            }
+            long afterId = 0;
+            List<ProductSuggestion> batch;
+            do {
+                batch = productRepository.findSuggestions(afterId, Limit.of(REBUILD_BATCH_SIZE));
+                for (ProductSuggestion product : batch) {
+                    rebuilt.link(new Entry(product.id(), product.name(), unitsSold.getOrDefault(product.id(), 0L)), false);
+                }
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).id();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+            rebuilt.root.computeStaleTops();
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+            changesDuringRebuild = null;
+            trie = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Long productId, String name) {
+        apply(trie -> trie.put(productId, name));
+    }
+
+    // The cached top lists are recomputed once for the whole batch instead of once per product
+    public void putAll(List<ProductSuggestion> products) {
+        List<ProductSuggestion> batch = List.copyOf(products);
+        apply(trie -> {
+            batch.forEach(product -> trie.put(product.id(), product.name(), false));
+            trie.root.computeStaleTops();
+        });
+    }
+
+    public void remove(Long productId) {
+        apply(trie -> trie.remove(productId));
+    }
+
+    public void recordSales(Map<Long, Integer> unitsByProduct) {
+        apply(trie -> unitsByProduct.forEach(trie::addPopularity));
+    }
+
+    /**
+     * Returns up to {@code limit} products whose name, or one of its first words, starts with the
+     * prefix, most popular first. A prefix ending in a space only matches whole words.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        if (!Tokenizer.endsInsideToken(prefix)) {
+            key = key + ' ';
+        }
+
+        Entry[] top;
+        lock.readLock().lock();
+        try {
+            top = trie.root.find(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(top.length, limit));
+        for (int i = 0; i < top.length && i < limit; i++) {
+            suggestions.add(new ProductSuggestion(top[i].productId(), top[i].name()));
+        }
+        return suggestions;
+    }
+
+    private void apply(Consumer<Trie> change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(change);
+                }
+            });
+        } else {
+            write(change);
+        }
+    }
+
+    private void write(Consumer<Trie> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(trie);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", Tokenizer.tokenize(text));
+    }
+
+    // The normalized name and the remainder of it from each of the following word starts. Keys end
+    // in a space, so a prefix that ends in one matches the last word of a name as well.
+    private static List<String> keys(String name) {
+        List<String> words = Tokenizer.tokenize(name);
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start < words.size() && start < MAX_INDEXED_WORDS; start++) {
+            String key = String.join(" ", words.subList(start, words.size()));
+            key = (key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key) + ' ';
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private record Entry(long productId, String name, long popularity) {}
+
+    private static final class Trie {
+
+        private final Node root = new Node("");
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        void put(Long productId, String name) {
+            put(productId, name, true);
+        }
+
+        void put(Long productId, String name, boolean maintainTop) {
+            Entry previous = entries.get(productId);
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(new Entry(productId, name, previous != null ? previous.popularity() : 0), maintainTop);
+        }
+
+        void remove(Long productId) {
+            Entry previous = entries.get(productId);
+            if (previous != null) {
+                unlink(previous);
+            }
+        }
+
+        // The keys stay the same, so the entry is swapped in place rather than unlinked and linked again
+        void addPopularity(Long productId, Integer units) {
+            Entry previous = entries.get(productId);
+            if (previous != null) {
+                Entry updated = new Entry(productId, previous.name(), previous.popularity() + units);
+                entries.put(productId, updated);
+                for (String key : keys(updated.name())) {
+                    root.replace(key, updated);
+                }
+            }
+        }
+
+        // A bulk load only marks the nodes it passes as stale; their top lists are computed once at the end
+        void link(Entry entry, boolean maintainTop) {
+            entries.put(entry.productId(), entry);
+            for (String key : keys(entry.name())) {
+                root.insert(key, entry, maintainTop);
+            }
+        }
+
+        private void unlink(Entry entry) {
+            entries.remove(entry.productId());
+            for (String key : keys(entry.name())) {
+                root.delete(key, entry.productId());
+            }
+        }
+    }
+
+    private static final class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private String label;
+        // Children sorted by the first character of their label
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+        // Products whose key ends exactly here
+        private Entry[] terminals = NO_ENTRIES;
+        // The most popular products at or below this node
+        private Entry[] top = NO_ENTRIES;
+        // Set when a bulk load changed something below this node; its ancestors are stale as well
+        private boolean stale;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Entry[] find(String key) {
+            Node node = this;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.child(key.charAt(position));
+                if (child == null) {
+                    return NO_ENTRIES;
+                }
+                int common = commonPrefix(child.label, key, position);
+                if (position + common == key.length()) {
+                    return child.top;
+                }
+                if (common < child.label.length()) {
+                    return NO_ENTRIES;
+                }
+                node = child;
+                position += common;
+            }
+            return node.top;
+        }
+
+        void insert(String key, Entry entry, boolean maintainTop) {
+            List<Node> path = new ArrayList<>();
+            path.add(this);
+            Node node = this;
+            int position = 0;
+            while (position < key.length()) {
+                char first = key.charAt(position);
+                Node child = node.child(first);
+                if (child == null) {
+                    child = new Node(key.substring(position));
+                    node.addChild(child);
+                    position = key.length();
+                } else {
+                    int common = commonPrefix(child.label, key, position);
+                    if (common < child.label.length()) {
+                        Node split = new Node(child.label.substring(0, common));
+                        child.label = child.label.substring(common);
+                        split.addChild(child);
+                        node.children[Arrays.binarySearch(node.keys, first)] = split;
+                        child = split;
+                    }
+                    position += common;
+                }
+                node = child;
+                path.add(node);
+            }
+            node.terminals = Arrays.copyOf(node.terminals, node.terminals.length + 1);
+            node.terminals[node.terminals.length - 1] = entry;
+
+            for (int i = path.size() - 1; i >= 0; i--) {
+                if (maintainTop) {
+                    path.get(i).computeTop();
+                } else {
+                    path.get(i).stale = true;
+                }
+            }
+        }
+
+        void delete(String key, long productId) {
+            List<Node> path = path(key);
+            if (path == null) {
+                return;
+            }
+            Node node = path.get(path.size() - 1);
+            node.terminals = Arrays.stream(node.terminals).filter(entry -> entry.productId() != productId).toArray(Entry[]::new);
+
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Node current = path.get(i);
+                if (i > 0 && current.terminals.length == 0 && current.children.length == 0) {
+                    path.get(i - 1).removeChild(current.label.charAt(0));
+                } else {
+                    current.computeTop();
+                }
+            }
+        }
+
+        void replace(String key, Entry entry) {
+            List<Node> path = path(key);
+            if (path == null) {
+                return;
+            }
+            Entry[] terminals = path.get(path.size() - 1).terminals;
+            for (int i = 0; i < terminals.length; i++) {
+                if (terminals[i].productId() == entry.productId()) {
+                    terminals[i] = entry;
+                }
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                path.get(i).computeTop();
+            }
+        }
+
+        void computeStaleTops() {
+            for (Node child : children) {
+                if (child.stale) {
+                    child.computeStaleTops();
+                }
+            }
+            computeTop();
+            stale = false;
+        }
+
+        private void computeTop() {
+            Entry[] best = new Entry[MAX_SUGGESTIONS];
+            int size = offerAll(best, 0, terminals);
+            for (Node child : children) {
+                size = offerAll(best, size, child.top);
+            }
+            top = size == best.length ? best : Arrays.copyOf(best, size);
+        }
+
+        // Insertion into the sorted, bounded best list
+        private static int offerAll(Entry[] best, int size, Entry[] candidates) {
+            for (Entry candidate : candidates) {
+                if (size == best.length && BY_POPULARITY.compare(candidate, best[size - 1]) >= 0) {
+                    continue;
+                }
+                // One product can be reached through several keys below a node
+                boolean present = false;
+                for (int i = 0; i < size && !present; i++) {
+                    present = best[i].productId() == candidate.productId();
+                }
+                if (present) {
+                    continue;
+                }
+                int position = size;
+                while (position > 0 && BY_POPULARITY.compare(candidate, best[position - 1]) < 0) {
+                    position--;
+                }
+                int moved = Math.min(size, best.length - 1) - position;
+                System.arraycopy(best, position, best, position + 1, moved);
+                best[position] = candidate;
+                size = Math.min(size + 1, best.length);
+            }
+            return size;
+        }
+
+        // The nodes from here down to the one where the key ends, or null if the key is not in the trie
+        private List<Node> path(String key) {
+            List<Node> path = new ArrayList<>();
+            path.add(this);
+            Node node = this;
+            int position = 0;
+            while (position < key.length()) {
+                Node child = node.child(key.charAt(position));
+                if (child == null || !key.startsWith(child.label, position)) {
+                    return null;
+                }
+                position += child.label.length();
+                node = child;
+                path.add(node);
+            }
+            return path;
+        }
+
+        private Node child(char first) {
+            int index = Arrays.binarySearch(keys, first);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private void addChild(Node child) {
+            int insertAt = -Arrays.binarySearch(keys, child.label.charAt(0)) - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = child.label.charAt(0);
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private void removeChild(char first) {
+            int index = Arrays.binarySearch(keys, first);
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private static int commonPrefix(String label, String key, int offset) {
+            int length = Math.min(label.length(), key.length() - offset);
+            int common = 0;
+            while (common < length && label.charAt(common) == key.charAt(offset + common)) {
+                common++;
+            }
+            return common;
+        }
+    }
+}
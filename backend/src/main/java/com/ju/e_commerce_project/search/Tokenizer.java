@@ -0,0 +1,42 @@
+package com.ju.e_commerce_project.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text into lower-case runs of letters and digits. Documents and queries go through the
+ * same tokenizer, so "USB-C" matches "usb c".
+ */
+public final class Tokenizer {
+
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                if (i - start <= MAX_TOKEN_LENGTH) {
+                    tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // A query still being typed ends inside a word; its last token is matched as a prefix
+    public static boolean endsInsideToken(String text) {
+        return text != null && !text.isEmpty() && Character.isLetterOrDigit(text.charAt(text.length() - 1));
+    }
+}
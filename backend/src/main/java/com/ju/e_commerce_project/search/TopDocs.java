@@ -0,0 +1,76 @@
+package com.ju.e_commerce_project.search;
+
+/**
+ * Keeps the best {@code capacity} documents offered to it in a bounded heap whose root is the
+ * worst document kept, so most offers cost a single comparison.
+ */
+final class TopDocs {
+
+    interface Order {
+        boolean ranksBelow(int doc, int other);
+    }
+
+    private final int[] heap;
+    private final Order order;
+    private int size;
+
+    TopDocs(int capacity, Order order) {
+        this.heap = new int[capacity];
+        this.order = order;
+    }
+
+    void offer(int doc) {
+        if (size < heap.length) {
+            heap[size] = doc;
+            siftUp(size++);
+        } else if (size > 0 && order.ranksBelow(heap[0], doc)) {
+            heap[0] = doc;
+            siftDown(size);
+        }
+    }
+
+    // Best first; empties the heap
+    int[] drain() {
+        int[] sorted = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            sorted[i] = heap[0];
+            heap[0] = heap[i];
+            siftDown(i);
+        }
+        size = 0;
+        return sorted;
+    }
+
+    private void siftUp(int index) {
+        int doc = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!order.ranksBelow(doc, heap[parent])) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = doc;
+    }
+
+    private void siftDown(int size) {
+        int index = 0;
+        int doc = heap[0];
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && order.ranksBelow(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!order.ranksBelow(heap[child], doc)) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = doc;
+    }
+}
@@ -1,18 +1,17 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.dto.response.LoginUserResponse;
 import com.ju.e_commerce_project.dto.response.RegisterUserResponse;
 import com.ju.e_commerce_project.dto.request.LoginUserRequest;
+import com.ju.e_commerce_project.dto.request.RefreshTokenRequest;
 import com.ju.e_commerce_project.dto.request.RegisterUserRequest;
 import com.ju.e_commerce_project.exception.UserAlreadyExistException;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -21,29 +20,28 @@ import java.util.Optional;
 
 @Service
 public class AuthService {
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtService jwtService;
+    private final UserDetailsCache userDetailsCache;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+
+    private volatile String userNotFoundPassword;
 
     @Autowired
-    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager, UserDetailsService userDetailsService, JwtService jwtService) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService, UserDetailsCache userDetailsCache, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
-        this.userDetailsService = userDetailsService;
         this.jwtService = jwtService;
+        this.userDetailsCache = userDetailsCache;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     public RegisterUserResponse registerUser(RegisterUserRequest userRequest) {
-        if (userRepository.existsByUsername(userRequest.username())) {
-            throw new UserAlreadyExistException("Username already exists");
-        }
-        if (userRepository.existsByEmail(userRequest.email())) {
-            throw new UserAlreadyExistException("Email already exists");
-        }
-
         var user = new User(
                 userRequest.username(),
                 passwordEncoder.encode(userRequest.password()),
@@ -54,29 +52,71 @@ public class AuthService {
                 userRequest.address(),
                 userRequest.role()
         );
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // The unique constraints reject duplicates, so only a failed insert pays for finding out which one
+            if (userRepository.existsByUsername(userRequest.username())) {
+                throw new UserAlreadyExistException("Username already exists");
+            }
+            if (userRepository.existsByEmail(userRequest.email())) {
+                throw new UserAlreadyExistException("Email already exists");
+            }
+            throw e;
+        }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userRequest.username());
-        String token = jwtService.generateToken(userDetails);
+        String token = jwtService.generateToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
 
-        return new RegisterUserResponse(userRequest.username(), token);
+        return new RegisterUserResponse(userRequest.username(), token, refreshToken);
     }
 
     public LoginUserResponse loginUser(LoginUserRequest userRequest) {
-        try {
-            // Authenticate the user using Spring Security's AuthenticationManager
-            authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(userRequest.username(), userRequest.password())
-            );
-        } catch (BadCredentialsException e) {
-            throw new BadCredentialsException("Invalid credentials"); // Re-throw for consistent error handling
+        // One read serves the password check, the token claims and the response
+        User user = userRepository.findByUsername(userRequest.username()).orElse(null);
+        if (user == null) {
+            // Hash anyway so the response time does not reveal whether the username exists
+            passwordEncoder.matches(userRequest.password(), getUserNotFoundPassword());
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        if (!passwordEncoder.matches(userRequest.password(), user.getPassword())) {
+            throw new BadCredentialsException("Invalid credentials");
+        }
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            // The hash predates the current work factor; the raw password is only available now
+            user.setPassword(passwordEncoder.encode(userRequest.password()));
+            userRepository.save(user);
+            userDetailsCache.invalidate(user.getUsername());
         }
 
-        UserDetails userDetails = userDetailsService.loadUserByUsername(userRequest.username());
-        String token = jwtService.generateToken(userDetails);
-        User user = findUserByUsername(userRequest.username());
+        String token = jwtService.generateToken(user);
+        String refreshToken = refreshTokenService.createRefreshToken(user);
 
-        return new LoginUserResponse(userRequest.username(), token, user.getRole());
+        return new LoginUserResponse(user.getUsername(), token, user.getRole(), refreshToken);
+    }
+
+    // Mints a new access token from a refresh token without touching the password hash
+    public LoginUserResponse refreshAccessToken(RefreshTokenRequest refreshTokenRequest) {
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate(refreshTokenRequest.refreshToken());
+        User user = rotated.user();
+        String token = jwtService.generateToken(user);
+
+        return new LoginUserResponse(user.getUsername(), token, user.getRole(), rotated.refreshToken());
+    }
+
+    // The access token stays valid until it expires unless its jti is put on the revocation list
+    public void logout(String accessToken, String refreshToken) {
+        tokenRevocationService.revoke(jwtService.extractAllClaims(accessToken));
+        if (refreshToken != null) {
+            refreshTokenService.revoke(refreshToken);
+        }
+    }
+
+    private String getUserNotFoundPassword() {
+        if (userNotFoundPassword == null) {
+            userNotFoundPassword = passwordEncoder.encode(USER_NOT_FOUND_PASSWORD);
+        }
+        return userNotFoundPassword;
     }
 
     public User findUserByUsername(String username) {
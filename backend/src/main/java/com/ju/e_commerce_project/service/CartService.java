@@ -1,25 +1,45 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cart.CartLine;
+import com.ju.e_commerce_project.cart.CartSnapshot;
+import com.ju.e_commerce_project.cart.WriteBehindCartStore;
 import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.CartOperation;
+import com.ju.e_commerce_project.dto.request.CartOperationType;
 import com.ju.e_commerce_project.dto.request.UpdateCartItemRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartRequest;
+import com.ju.e_commerce_project.dto.response.CartDeltaResponse;
 import com.ju.e_commerce_project.dto.response.CartItemResponse;
 import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.exception.InvalidInputException;
 import com.ju.e_commerce_project.exception.ResourceNotFoundException;
 import com.ju.e_commerce_project.model.Cart;
 import com.ju.e_commerce_project.model.CartItem;
-import com.ju.e_commerce_project.model.Product;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.repository.CartItemRepository;
 import com.ju.e_commerce_project.repository.CartRepository;
+import com.ju.e_commerce_project.repository.CartSummary;
+import com.ju.e_commerce_project.repository.CartUpsertRepository;
 import com.ju.e_commerce_project.repository.ProductRepository;
 import com.ju.e_commerce_project.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,88 +47,194 @@ public class CartService {
 
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final CartUpsertRepository cartUpsertRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    // Present with cart.store=write-behind; carts are then read and changed in memory, outside any
+    // transaction here, so no connection is held while a change waits for the store's log
+    private final WriteBehindCartStore writeBehindCartStore;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public CartService(
             CartRepository cartRepository,
             CartItemRepository cartItemRepository,
+            CartUpsertRepository cartUpsertRepository,
             ProductRepository productRepository,
-            UserRepository userRepository
+            UserRepository userRepository,
+            Optional<WriteBehindCartStore> writeBehindCartStore,
+            TransactionTemplate transactionTemplate
     ) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
+        this.cartUpsertRepository = cartUpsertRepository;
         this.productRepository = productRepository;
         this.userRepository = userRepository;
+        this.writeBehindCartStore = writeBehindCartStore.orElse(null);
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
     public CartResponse getCart(String username) {
-        User user = getUserByUsername(username);
-        Cart cart = getOrCreateCart(user);
-        return mapToCartResponse(cart);
+        if (writeBehindCartStore != null) {
+            return mapToCartResponse(writeBehindCartStore.read(username, cartSource(username)));
+        }
+        return transactionTemplate.execute(status -> {
+            User user = getUserByUsername(username);
+            Cart cart = getOrCreateCart(user);
+            return mapToCartResponse(cart, user);
+        });
     }
 
-    @Transactional
     public CartResponse addItemToCart(String username, AddItemToCartRequest request) {
-        User user = getUserByUsername(username);
-        Cart cart = getOrCreateCart(user);
-        Product product = productRepository.findById(request.productId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + request.productId()));
-
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElse(new CartItem(cart, product, 0));
-
-        cartItem.setQuantity(cartItem.getQuantity() + request.quantity());
-        cartItemRepository.save(cartItem);
-
-        if (!cart.getCartItems().contains(cartItem)) {
-            cart.addCartItem(cartItem);
+        if (writeBehindCartStore != null) {
+            return mapToCartResponse(addStoredItem(username, request));
         }
+        return transactionTemplate.execute(status -> mapToCartResponse(addItem(username, request)));
+    }
 
-        cartRepository.save(cart);
-
-        return mapToCartResponse(cart);
+    public CartDeltaResponse addItemToCartDelta(String username, AddItemToCartRequest request) {
+        if (writeBehindCartStore != null) {
+            CartSnapshot cart = addStoredItem(username, request);
+            return mapToCartDelta(cart, lineIdOf(cart, request.productId()), false);
+        }
+        return transactionTemplate.execute(status -> mapToCartDelta(addItem(username, request)));
     }
 
-    @Transactional
     public CartResponse updateCartItem(String username, Long cartItemId, UpdateCartItemRequest request) {
-        User user = getUserByUsername(username);
-        Cart cart = getOrCreateCart(user);
+        if (writeBehindCartStore != null) {
+            return mapToCartResponse(setStoredItem(username, cartItemId, request.quantity()));
+        }
+        return transactionTemplate.execute(status -> mapToCartResponse(updateItem(username, cartItemId, request)));
+    }
 
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + cartItemId));
+    public CartDeltaResponse updateCartItemDelta(String username, Long cartItemId, UpdateCartItemRequest request) {
+        if (writeBehindCartStore != null) {
+            return mapToCartDelta(setStoredItem(username, cartItemId, request.quantity()), cartItemId, false);
+        }
+        return transactionTemplate.execute(status -> mapToCartDelta(updateItem(username, cartItemId, request)));
+    }
 
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new SecurityException("Cart item does not belong to the current user's cart.");
+    public CartResponse removeCartItem(String username, Long cartItemId) {
+        if (writeBehindCartStore != null) {
+            return mapToCartResponse(setStoredItem(username, cartItemId, 0));
         }
+        return transactionTemplate.execute(status -> mapToCartResponse(removeItem(username, cartItemId)));
+    }
 
-        cartItem.setQuantity(request.quantity());
-        cartItemRepository.save(cartItem);
+    public CartDeltaResponse removeCartItemDelta(String username, Long cartItemId) {
+        if (writeBehindCartStore != null) {
+            return mapToCartDelta(setStoredItem(username, cartItemId, 0), cartItemId, true);
+        }
+        return transactionTemplate.execute(status -> mapToCartDelta(removeItem(username, cartItemId)));
+    }
 
-        return mapToCartResponse(cart);
+    /**
+     * Applies the operations in order in one transaction and returns the resulting cart. The user,
+     * the cart with its lines and the products being added are each read once, however many
+     * operations there are; a line removed and added again in the same request keeps its row.
+     * Lines that are only added to are written as one batch of upserts, so adds racing with
+     * another request are summed rather than lost.
+     */
+    public CartResponse applyOperations(String username, UpdateCartRequest request) {
+        if (writeBehindCartStore != null) {
+            checkOperations(request);
+            int additions = (int) request.operations().stream().filter(operation -> operation.type() == CartOperationType.ADD).count();
+            return mapToCartResponse(writeBehindCartStore.update(username, cartSource(username), additions, edit -> {
+                for (CartOperation operation : request.operations()) {
+                    switch (operation.type()) {
+                        case ADD -> edit.add(operation.productId(), operation.quantity());
+                        case UPDATE -> edit.set(operation.cartItemId(), operation.quantity());
+                        case REMOVE -> edit.set(operation.cartItemId(), 0);
+                    }
+                }
+            }));
+        }
+        return transactionTemplate.execute(status -> applyToRows(username, request));
     }
 
-    @Transactional
-    public CartResponse removeCartItem(String username, Long cartItemId) {
+    private CartResponse applyToRows(String username, UpdateCartRequest request) {
         User user = getUserByUsername(username);
         Cart cart = getOrCreateCart(user);
+        cartRepository.incrementVersion(cart.getId());
+        checkOperations(request);
+
+        // The cart's own lines are the only ones an operation may name
+        Map<Long, PendingLine> linesByProduct = new LinkedHashMap<>();
+        Map<Long, PendingLine> linesByItemId = new HashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            PendingLine line = new PendingLine(item, item.getQuantity());
+            linesByProduct.put(item.getProduct().getId(), line);
+            linesByItemId.put(item.getId(), line);
+        }
 
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + cartItemId));
+        for (CartOperation operation : request.operations()) {
+            switch (operation.type()) {
+                case ADD -> {
+                    PendingLine line = linesByProduct.computeIfAbsent(operation.productId(), id -> new PendingLine(null, 0));
+                    line.quantity += operation.quantity();
+                    line.added += operation.quantity();
+                }
+                case UPDATE -> findLine(linesByItemId, operation.cartItemId()).set(operation.quantity());
+                case REMOVE -> findLine(linesByItemId, operation.cartItemId()).set(0);
+            }
+        }
 
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new SecurityException("Cart item does not belong to the current user's cart.");
+        Map<Long, Integer> additions = new LinkedHashMap<>();
+        for (Map.Entry<Long, PendingLine> entry : linesByProduct.entrySet()) {
+            PendingLine line = entry.getValue();
+            if (!line.set) {
+                if (line.added > 0) {
+                    additions.put(entry.getKey(), line.added);
+                }
+            } else if (line.quantity == 0) {
+                cartItemRepository.delete(line.item);
+                cart.removeCartItem(line.item);
+            } else if (line.quantity != line.item.getQuantity()) {
+                line.item.setQuantity(line.quantity);
+            }
         }
+        cartUpsertRepository.addQuantities(cart.getId(), additions);
 
-        cartItemRepository.delete(cartItem);
-        cart.removeCartItem(cartItem);
-        cartRepository.save(cart);
+        return mapToCartResponse(new CartMutation(cart, user, null, null, false));
+    }
+
+    // Every operation is complete and every product it adds exists
+    private void checkOperations(UpdateCartRequest request) {
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < request.operations().size(); i++) {
+            CartOperation operation = request.operations().get(i);
+            validate(operation, i);
+            if (operation.type() == CartOperationType.ADD) {
+                productIds.add(operation.productId());
+            }
+        }
+        if (!productIds.isEmpty()) {
+            Set<Long> existingIds = new HashSet<>(productRepository.findExistingIds(productIds));
+            for (Long productId : productIds) {
+                if (!existingIds.contains(productId)) {
+                    throw new ResourceNotFoundException("Product not found with id: " + productId);
+                }
+            }
+        }
+    }
 
-        Cart updatedCart = cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found after item removal"));
-        return mapToCartResponse(updatedCart);
+    private static void validate(CartOperation operation, int index) {
+        String missing = switch (operation.type()) {
+            case ADD -> operation.productId() == null ? "productId" : operation.quantity() == null ? "quantity" : null;
+            case UPDATE -> operation.cartItemId() == null ? "cartItemId" : operation.quantity() == null ? "quantity" : null;
+            case REMOVE -> operation.cartItemId() == null ? "cartItemId" : null;
+        };
+        if (missing != null) {
+            throw new InvalidInputException("Operation " + index + " (" + operation.type() + ") requires " + missing);
+        }
+    }
+
+    private static PendingLine findLine(Map<Long, PendingLine> linesByItemId, Long cartItemId) {
+        PendingLine line = linesByItemId.get(cartItemId);
+        if (line == null || line.quantity == 0) {
+            throw new ResourceNotFoundException("Cart item not found with id: " + cartItemId);
+        }
+        return line;
     }
 
     @Transactional
@@ -117,12 +243,95 @@ public class CartService {
         Cart cart = cartRepository.findByUser(user).orElse(null);
 
         if (cart != null && cart.getCartItems() != null && !cart.getCartItems().isEmpty()) {
+            cartRepository.incrementVersion(cart.getId());
             cartItemRepository.deleteAll(cart.getCartItems());
 
             if (cart.getCartItems() != null) {
                 cart.getCartItems().clear();
             }
         }
+        if (writeBehindCartStore != null) {
+            writeBehindCartStore.evict(username);
+        }
+    }
+
+    /**
+     * With the write-behind store, writes the customer's pending cart changes to the database in a
+     * transaction of their own, so checkout reads the cart as the customer last saw it. Call it
+     * outside any transaction, so the write does not need a second connection.
+     */
+    public void flushCart(String username) {
+        if (writeBehindCartStore != null) {
+            writeBehindCartStore.flush(username);
+        }
+    }
+
+    // Adds in one upsert statement, so concurrent adds of the same product end up on one line with the summed
+    // quantity; the version bump before it locks the cart row, which the MERGE used outside MySQL relies on
+    private CartMutation addItem(String username, AddItemToCartRequest request) {
+        User user = getUserByUsername(username);
+        Cart cart = getOrCreateCart(user);
+        cartRepository.incrementVersion(cart.getId());
+        requireProduct(request.productId());
+
+        cartUpsertRepository.addQuantity(cart.getId(), request.productId(), request.quantity());
+
+        return new CartMutation(cart, user, null, request.productId(), false);
+    }
+
+    private CartSnapshot addStoredItem(String username, AddItemToCartRequest request) {
+        requireProduct(request.productId());
+        return writeBehindCartStore.update(username, cartSource(username), 1, edit -> edit.add(request.productId(), request.quantity()));
+    }
+
+    // A quantity of 0 removes the line
+    private CartSnapshot setStoredItem(String username, Long cartItemId, int quantity) {
+        return writeBehindCartStore.update(username, cartSource(username), 0, edit -> edit.set(cartItemId, quantity));
+    }
+
+    // Only called when the store does not hold the cart yet
+    private Supplier<Cart> cartSource(String username) {
+        return () -> getOrCreateCart(getUserByUsername(username));
+    }
+
+    private void requireProduct(Long productId) {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+    }
+
+    private CartMutation updateItem(String username, Long cartItemId, UpdateCartItemRequest request) {
+        User user = getUserByUsername(username);
+        Cart cart = getOrCreateCart(user);
+        cartRepository.incrementVersion(cart.getId());
+        CartItem cartItem = findOwnCartItem(cart, cartItemId);
+
+        cartItem.setQuantity(request.quantity());
+        cartItemRepository.save(cartItem);
+
+        return new CartMutation(cart, user, cartItemId, null, false);
+    }
+
+    private CartMutation removeItem(String username, Long cartItemId) {
+        User user = getUserByUsername(username);
+        Cart cart = getOrCreateCart(user);
+        cartRepository.incrementVersion(cart.getId());
+        CartItem cartItem = findOwnCartItem(cart, cartItemId);
+
+        cartItemRepository.delete(cartItem);
+        cart.removeCartItem(cartItem);
+
+        return new CartMutation(cart, user, cartItemId, null, true);
+    }
+
+    private CartItem findOwnCartItem(Cart cart, Long cartItemId) {
+        CartItem cartItem = cartItemRepository.findById(cartItemId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found with id: " + cartItemId));
+
+        if (!cartItem.getCart().getId().equals(cart.getId())) {
+            throw new SecurityException("Cart item does not belong to the current user's cart.");
+        }
+        return cartItem;
     }
 
     private User getUserByUsername(String username) {
@@ -130,41 +339,138 @@ public class CartService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
+    // Two first requests may race to create the cart; the upsert lets exactly one of them insert it
     private Cart getOrCreateCart(User user) {
         return cartRepository.findByUser(user).orElseGet(() -> {
-            Cart newCart = new Cart(user);
-            return cartRepository.save(newCart);
+            cartUpsertRepository.createCartIfAbsent(user.getUserId());
+            return cartRepository.findByUser(user).orElseThrow();
         });
     }
 
-    private CartResponse mapToCartResponse(Cart cart) {
-        Cart freshCart = cartRepository.findById(cart.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found with ID: " + cart.getId()));
+    // The version in the loaded entity is stale once a mutation has bumped it, so it is read back
+    private CartResponse mapToCartResponse(CartMutation mutation) {
+        return mapToCartResponse(mutation.cart(), mutation.user(), cartRepository.findVersionById(mutation.cart().getId()));
+    }
+
+    // Only the changed line and the totals are read; the rest of the cart is not touched
+    private CartDeltaResponse mapToCartDelta(CartMutation mutation) {
+        CartItemResponse item = mutation.removed() ? null
+                : mutation.cartItemId() != null ? cartItemRepository.findResponseById(mutation.cartItemId())
+                : cartItemRepository.findResponseByCartIdAndProductId(mutation.cart().getId(), mutation.productId());
+        CartSummary summary = cartRepository.findSummaryById(mutation.cart().getId());
+        return new CartDeltaResponse(
+                mutation.cart().getId(),
+                summary.version(),
+                item,
+                mutation.removed() ? mutation.cartItemId() : null,
+                summary.totalPrice(),
+                (int) summary.totalItems()
+        );
+    }
+
+    private CartResponse mapToCartResponse(Cart cart, User user) {
+        return mapToCartResponse(cart, user, cart.getVersion());
+    }
 
-        List<CartItemResponse> itemResponses = freshCart.getCartItems().stream()
-                .map(item -> new CartItemResponse(
-                        item.getId(),
-                        item.getProduct().getId(),
-                        item.getProduct().getName(),
-                        item.getProduct().getDescription(),
-                        item.getProduct().getPrice(),
-                        item.getQuantity(),
-                        item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity()))
-                ))
-                .collect(Collectors.toList());
+    // Lines come from one projection query, so the cost does not depend on the size of the cart
+    private CartResponse mapToCartResponse(Cart cart, User user, long version) {
+        return mapToCartResponse(cart.getId(), user.getUserId(), version, cartItemRepository.findResponsesByCartId(cart.getId()));
+    }
 
-        BigDecimal totalPrice = itemResponses.stream()
-                .map(CartItemResponse::subtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private CartResponse mapToCartResponse(CartSnapshot cart) {
+        return mapToCartResponse(cart.cartId(), cart.userId(), cart.version(), mapToItemResponses(cart));
+    }
 
-        int totalItems = itemResponses.stream().mapToInt(CartItemResponse::quantity).sum();
+    private CartResponse mapToCartResponse(Long cartId, Long userId, long version, List<CartItemResponse> itemResponses) {
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        int totalItems = 0;
+        for (CartItemResponse item : itemResponses) {
+            totalPrice = totalPrice.add(item.subtotal());
+            totalItems += item.quantity();
+        }
 
         return new CartResponse(
-                freshCart.getId(),
-                freshCart.getUser().getUserId(),
+                cartId,
+                userId,
+                version,
                 itemResponses,
                 totalPrice,
                 totalItems
         );
     }
+
+    private CartDeltaResponse mapToCartDelta(CartSnapshot cart, Long cartItemId, boolean removed) {
+        CartResponse response = mapToCartResponse(cart);
+        CartItemResponse item = removed ? null : response.items().stream()
+                .filter(line -> line.cartItemId().equals(cartItemId))
+                .findFirst()
+                .orElse(null);
+        return new CartDeltaResponse(
+                cart.cartId(),
+                cart.version(),
+                item,
+                removed ? cartItemId : null,
+                response.totalPrice(),
+                response.totalItems()
+        );
+    }
+
+    // The store holds quantities only; product details are read fresh, in one query for the whole cart
+    private List<CartItemResponse> mapToItemResponses(CartSnapshot cart) {
+        if (cart.lines().isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductResponse> products = productRepository.findResponsesByIds(cart.lines().stream().map(CartLine::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(ProductResponse::id, Function.identity()));
+
+        List<CartItemResponse> itemResponses = new ArrayList<>(cart.lines().size());
+        for (CartLine line : cart.lines()) {
+            ProductResponse product = products.get(line.productId());
+            if (product != null) {
+                itemResponses.add(new CartItemResponse(
+                        line.id(),
+                        product.id(),
+                        product.name(),
+                        product.description(),
+                        product.price(),
+                        line.quantity(),
+                        product.price().multiply(BigDecimal.valueOf(line.quantity()))
+                ));
+            }
+        }
+        return itemResponses;
+    }
+
+    private static Long lineIdOf(CartSnapshot cart, Long productId) {
+        for (CartLine line : cart.lines()) {
+            if (line.productId() == productId) {
+                return line.id();
+            }
+        }
+        return null;
+    }
+
+    // The quantity a line will have once the operations are applied; 0 means it goes away. A line that
+    // is never set outright is written as an increment of what was added, not as this quantity
+    private static final class PendingLine {
+
+        private final CartItem item;
+        private int quantity;
+        private int added;
+        private boolean set;
+
+        PendingLine(CartItem item, int quantity) {
+            this.item = item;
+            this.quantity = quantity;
+        }
+
+        void set(int quantity) {
+            this.quantity = quantity;
+            this.set = true;
+        }
+    }
+
+    // An added line is known by its product, every other one by its id
+    private record CartMutation(Cart cart, User user, Long cartItemId, Long productId, boolean removed) {}
 }
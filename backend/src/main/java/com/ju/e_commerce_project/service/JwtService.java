@@ -1,24 +1,51 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.BoundedCache;
+import com.ju.e_commerce_project.cache.CacheStats;
+import com.ju.e_commerce_project.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.security.Key;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
-    @Value("${security.jwt.secret-key}")
-    private String secretKey;
+    public static final String ROLE_CLAIM = "role";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+
+    private final SecretKey signInKey;
+    private final JwtParser jwtParser;
+    private final long accessTokenTtlMillis;
+
+    // Verified claims keyed by the SHA-256 digest of the token, kept until the token expires
+    private final BoundedCache<ByteBuffer, Claims> verifiedTokens;
+
+    public JwtService(
+            @Value("${security.jwt.secret-key}") String secretKey,
+            @Value("${security.jwt.verified-token-cache-size:10000}") int verifiedTokenCacheSize,
+            @Value("${security.jwt.access-token-ttl-minutes:15}") long accessTokenTtlMinutes
+    ) {
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parser().verifyWith(signInKey).build();
+        this.verifiedTokens = new BoundedCache<>(verifiedTokenCacheSize);
+        this.accessTokenTtlMillis = accessTokenTtlMinutes * 60 * 1000;
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -33,45 +60,67 @@ public class JwtService {
         return generateToken(new HashMap<>(), userDetails);
     }
 
+    // Embeds everything the filter needs to authenticate the request without loading the user
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ROLE_CLAIM, user.getRole().name());
+        claims.put(USER_ID_CLAIM, user.getUserId());
+        claims.put(TOKEN_VERSION_CLAIM, user.getTokenVersion());
+        return buildToken(claims, user.getUsername());
+    }
+
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-        return buildToken(extraClaims, userDetails);
+        return buildToken(extraClaims, userDetails.getUsername());
     }
 
-    private String buildToken(Map<String, Object> extraClaims, UserDetails userDetails) {
+    private String buildToken(Map<String, Object> extraClaims, String username) {
         return Jwts
                 .builder()
-                .setClaims(extraClaims)
-                .setSubject(userDetails.getUsername())
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 30)) // 30m
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .claims(extraClaims)
+                .subject(username)
+                .id(UUID.randomUUID().toString())
+                .issuedAt(new Date(System.currentTimeMillis()))
+                .expiration(new Date(System.currentTimeMillis() + accessTokenTtlMillis))
+                .signWith(signInKey, Jwts.SIG.HS256)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(extractAllClaims(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies the token signature and returns its claims. A token is parsed and verified only once;
+     * later calls are served from the cache until the token expires.
+     */
+    public Claims extractAllClaims(String token) {
+        ByteBuffer digest = digest(token);
+        Claims claims = verifiedTokens.get(digest);
+        if (claims == null) {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+            verifiedTokens.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
+    }
+
+    public CacheStats verifiedTokenCacheStats() {
+        return verifiedTokens.stats();
     }
 
-    private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
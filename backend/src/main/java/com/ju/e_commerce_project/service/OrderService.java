@@ -10,13 +10,17 @@ import com.ju.e_commerce_project.model.*;
 import com.ju.e_commerce_project.model.enums.OrderStatus;
 import com.ju.e_commerce_project.model.enums.PaymentMethod;
 import com.ju.e_commerce_project.repository.*;
+import com.ju.e_commerce_project.search.ProductSuggester;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,6 +32,8 @@ public class OrderService {
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final CartService cartService;
+    private final ProductSuggester productSuggester;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public OrderService(OrderRepository orderRepository,
@@ -35,17 +41,30 @@ public class OrderService {
                         CartRepository cartRepository,
                         CartItemRepository cartItemRepository,
                         ProductRepository productRepository,
-                        CartService cartService) {
+                        CartService cartService,
+                        ProductSuggester productSuggester,
+                        TransactionTemplate transactionTemplate) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.productRepository = productRepository;
         this.cartService = cartService;
+        this.productSuggester = productSuggester;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    @Transactional
+    /**
+     * Writes the changes the write-behind cart store still holds for the customer before the order's
+     * transaction starts, so the write commits on its own connection instead of needing a second one
+     * while the order holds the first.
+     */
     public OrderResponse placeOrder(String username, PlaceOrderRequest request) {
+        cartService.flushCart(username);
+        return transactionTemplate.execute(status -> createOrder(username, request));
+    }
+
+    private OrderResponse createOrder(String username, PlaceOrderRequest request) {
         User user = getUserByUsername(username);
         Cart cart = cartRepository.findByUser(user)
                 .orElseThrow(() -> new EmptyCartException("Cannot place order with an empty or non-existent cart."));
@@ -75,6 +94,7 @@ public class OrderService {
         order.setOrderStatus(OrderStatus.PLACED);
 
         BigDecimal totalOrderAmount = BigDecimal.ZERO;
+        Map<Long, Integer> unitsByProduct = new HashMap<>();
 
         for (CartItem cartItem : cart.getCartItems()) {
             Product product = cartItem.getProduct();
@@ -91,12 +111,15 @@ public class OrderService {
             );
             order.addOrderItem(orderItem);
             totalOrderAmount = totalOrderAmount.add(orderItem.getSubtotal());
+            unitsByProduct.merge(product.getId(), cartItem.getQuantity(), Integer::sum);
         }
 
         order.setTotalAmount(totalOrderAmount);
         Order savedOrder = orderRepository.save(order);
 
         cartService.clearCart(username);
+        // Sales rank autocomplete suggestions
+        productSuggester.recordSales(unitsByProduct);
 
         return mapToOrderResponse(savedOrder);
     }
@@ -110,6 +133,10 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    public ResourceVersion getOrderHistoryVersion(String username) {
+        return orderRepository.findVersionByUsername(username);
+    }
+
     private User getUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
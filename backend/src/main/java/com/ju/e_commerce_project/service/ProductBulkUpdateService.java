@@ -0,0 +1,261 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.cache.ProductListingCache;
+import com.ju.e_commerce_project.dto.request.BulkUpdateProductsRequest;
+import com.ju.e_commerce_project.dto.request.PriceRule;
+import com.ju.e_commerce_project.dto.request.ProductChange;
+import com.ju.e_commerce_project.dto.response.BulkUpdateProductsResponse;
+import com.ju.e_commerce_project.exception.InvalidInputException;
+import com.ju.e_commerce_project.exception.ProductNotFoundException;
+import com.ju.e_commerce_project.exception.UnauthorizedOperationException;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.search.ProductDocument;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Changes the price or category of many of a seller's products in one request, either from a list
+ * of per-product changes or from a percentage rule. Ownership of a list is checked with a single
+ * query, and the rows are changed with one UPDATE statement per chunk. The whole request is one
+ * transaction; once it commits, the changed products are re-read and indexed a chunk at a time and
+ * the listing cache is invalidated once for every category they left or joined.
+ */
+@Service
+public class ProductBulkUpdateService {
+
+    // products.price is DECIMAL(10, 2)
+    private static final BigDecimal PRICE_LIMIT = new BigDecimal("100000000");
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final AuthService authService;
+    private final ProductCategoryService productCategoryService;
+    private final ProductListingCache productListingCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final int chunkSize;
+    private final int maxChanges;
+
+    public ProductBulkUpdateService(
+            JdbcTemplate jdbcTemplate,
+            ProductRepository productRepository,
+            AuthService authService,
+            ProductCategoryService productCategoryService,
+            ProductListingCache productListingCache,
+            ProductSearchIndex productSearchIndex,
+            @Value("${catalog.bulk-update.chunk-size:500}") int chunkSize,
+            @Value("${catalog.bulk-update.max-changes:10000}") int maxChanges
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.authService = authService;
+        this.productCategoryService = productCategoryService;
+        this.productListingCache = productListingCache;
+        this.productSearchIndex = productSearchIndex;
+        this.chunkSize = chunkSize;
+        this.maxChanges = maxChanges;
+    }
+
+    @Transactional
+    public BulkUpdateProductsResponse updateProducts(String sellerUsername, BulkUpdateProductsRequest request) {
+        if ((request.changes() == null) == (request.rule() == null)) {
+            throw new InvalidInputException("Send either changes or a rule");
+        }
+        User seller = authService.findUserByUsername(sellerUsername);
+        List<Long> updatedIds = new ArrayList<>();
+        Set<Long> affectedCategoryIds = new HashSet<>();
+        int updated = request.changes() != null
+                ? applyChanges(seller, request.changes(), updatedIds, affectedCategoryIds)
+                : applyRule(seller, request.rule(), updatedIds, affectedCategoryIds);
+        reindexAfterCommit(updatedIds, affectedCategoryIds);
+        return new BulkUpdateProductsResponse(updated);
+    }
+
+    // Adds the ids it changes to updatedIds and the categories they leave to affectedCategoryIds
+    private int applyChanges(User seller, List<ProductChange> changes, List<Long> updatedIds, Set<Long> affectedCategoryIds) {
+        if (changes.size() > maxChanges) {
+            throw new InvalidInputException("At most " + maxChanges + " products can be changed at once");
+        }
+        Map<Long, ProductChange> changesById = new LinkedHashMap<>();
+        for (ProductChange change : changes) {
+            if (change.price() == null && change.categoryId() == null) {
+                throw new InvalidInputException("The change to product " + change.productId() + " sets neither price nor categoryId");
+            }
+            if (changesById.putIfAbsent(change.productId(), change) != null) {
+                throw new InvalidInputException("Product " + change.productId() + " is changed more than once");
+            }
+            if (change.categoryId() != null) {
+                productCategoryService.findCategoryById(change.categoryId());
+            }
+        }
+        if (changesById.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> previousCategoryIds = checkOwnership(seller, changesById.keySet());
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        List<ProductChange> distinctChanges = new ArrayList<>(changesById.values());
+        for (int start = 0; start < distinctChanges.size(); start += chunkSize) {
+            List<ProductChange> chunk = distinctChanges.subList(start, Math.min(start + chunkSize, distinctChanges.size()));
+            update(chunk, now);
+        }
+        for (Long id : changesById.keySet()) {
+            updatedIds.add(id);
+            affectedCategoryIds.add(previousCategoryIds.get(id));
+        }
+        return distinctChanges.size();
+    }
+
+    // Returns the current category of each product; a product that is missing or belongs to another seller fails the request
+    private Map<Long, Long> checkOwnership(User seller, Set<Long> productIds) {
+        Map<Long, Long> categoryIds = new HashMap<>();
+        Set<Long> foreign = new HashSet<>();
+        jdbcTemplate.query("SELECT id, seller_id, category_id FROM products WHERE id IN (" + placeholders(productIds.size()) + ")",
+                resultSet -> {
+                    long id = resultSet.getLong(1);
+                    if (!Objects.equals(resultSet.getLong(2), seller.getUserId())) {
+                        foreign.add(id);
+                    }
+                    categoryIds.put(id, resultSet.getObject(3, Long.class));
+                },
+                productIds.toArray());
+
+        for (Long productId : productIds) {
+            if (!categoryIds.containsKey(productId)) {
+                throw new ProductNotFoundException(productId);
+            }
+            if (foreign.contains(productId)) {
+                throw new UnauthorizedOperationException("You are not authorized to update product " + productId + ".");
+            }
+        }
+        return categoryIds;
+    }
+
+    // One statement for the chunk: each column is set through a CASE on the id
+    private void update(List<ProductChange> chunk, Timestamp now) {
+        StringBuilder sql = new StringBuilder("UPDATE products SET ");
+        List<Object> arguments = new ArrayList<>();
+        appendCase(sql, arguments, chunk, "price", ProductChange::price);
+        appendCase(sql, arguments, chunk, "category_id", ProductChange::categoryId);
+        sql.append("updated_at = ? WHERE id IN (").append(placeholders(chunk.size())).append(')');
+        arguments.add(now);
+        chunk.forEach(change -> arguments.add(change.productId()));
+        jdbcTemplate.update(sql.toString(), arguments.toArray());
+    }
+
+    private static void appendCase(StringBuilder sql, List<Object> arguments, List<ProductChange> chunk,
+                                   String column, Function<ProductChange, Object> value) {
+        int start = sql.length();
+        for (ProductChange change : chunk) {
+            Object newValue = value.apply(change);
+            if (newValue != null) {
+                sql.append(sql.length() == start ? column + " = CASE id" : "").append(" WHEN ? THEN ?");
+                arguments.add(change.productId());
+                arguments.add(newValue);
+            }
+        }
+        if (sql.length() != start) {
+            sql.append(" ELSE ").append(column).append(" END, ");
+        }
+    }
+
+    private int applyRule(User seller, PriceRule rule, List<Long> updatedIds, Set<Long> affectedCategoryIds) {
+        if (rule.categoryId() != null) {
+            productCategoryService.findCategoryById(rule.categoryId());
+            affectedCategoryIds.add(rule.categoryId());
+        }
+        BigDecimal factor = BigDecimal.ONE.add(rule.percent().divide(HUNDRED));
+        String filter = "seller_id = ?" + (rule.categoryId() != null ? " AND category_id = ?" : "");
+        List<Object> filterArguments = rule.categoryId() != null
+                ? List.of(seller.getUserId(), rule.categoryId())
+                : List.of(seller.getUserId());
+
+        BigDecimal maxPrice = jdbcTemplate.queryForObject("SELECT MAX(price) FROM products WHERE " + filter, BigDecimal.class, filterArguments.toArray());
+        if (maxPrice != null && maxPrice.multiply(factor).setScale(2, RoundingMode.HALF_UP).compareTo(PRICE_LIMIT) >= 0) {
+            throw new InvalidInputException("Price is too large");
+        }
+
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object> selectArguments = new ArrayList<>(filterArguments);
+            selectArguments.add(afterId);
+            selectArguments.add(chunkSize);
+            List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM products WHERE " + filter + " AND id > ? ORDER BY id LIMIT ?",
+                    Long.class, selectArguments.toArray());
+            if (ids.isEmpty()) {
+                return updated;
+            }
+
+            // The same filter on an id range, so the chunk is updated without listing its ids
+            List<Object> updateArguments = new ArrayList<>();
+            updateArguments.add(factor);
+            updateArguments.add(now);
+            updateArguments.addAll(filterArguments);
+            updateArguments.add(afterId);
+            updateArguments.add(ids.get(ids.size() - 1));
+            updated += jdbcTemplate.update("UPDATE products SET price = ROUND(price * ?, 2), updated_at = ? WHERE " + filter + " AND id > ? AND id <= ?",
+                    updateArguments.toArray());
+
+            updatedIds.addAll(ids);
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+
+    // Registered once per request. By afterCompletion the synchronizations are over, so the index and
+    // the cache apply what they are given at once instead of deferring it again
+    private void reindexAfterCommit(List<Long> ids, Set<Long> affectedCategoryIds) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        reindex(ids, affectedCategoryIds);
+                    }
+                }
+            });
+        } else {
+            reindex(ids, affectedCategoryIds);
+        }
+    }
+
+    // Documents are read a chunk at a time, so a rule over a large catalog never holds them all
+    private void reindex(List<Long> ids, Set<Long> affectedCategoryIds) {
+        Set<Long> categoryIds = new HashSet<>(affectedCategoryIds);
+        for (int start = 0; start < ids.size(); start += chunkSize) {
+            List<ProductDocument> documents = productRepository.findDocumentsByIds(ids.subList(start, Math.min(start + chunkSize, ids.size())));
+            documents.forEach(document -> categoryIds.add(document.categoryId()));
+            productSearchIndex.indexAll(documents);
+        }
+        productListingCache.invalidateCategories(categoryIds);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
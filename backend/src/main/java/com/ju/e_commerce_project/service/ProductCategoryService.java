@@ -3,30 +3,92 @@ package com.ju.e_commerce_project.service;
 import com.ju.e_commerce_project.exception.ProductCategoryNotFoundException;
 import com.ju.e_commerce_project.model.ProductCategory;
 import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Serves categories from an immutable in-memory snapshot. Categories almost never change, so readers
+ * go through a volatile reference without locking or querying, and a reload swaps in a whole new snapshot.
+ */
 @Service
 public class ProductCategoryService {
 
     private final ProductCategoryRepository productCategoryRepository;
 
+    private volatile CategorySnapshot snapshot;
+
     public ProductCategoryService(ProductCategoryRepository productCategoryRepository) {
         this.productCategoryRepository = productCategoryRepository;
     }
 
     public ProductCategory findCategoryById(Long id) {
+        ProductCategory category = snapshot().byId().get(id);
+        if (category != null) {
+            return category;
+        }
+
+        // A category added directly in the database is picked up on the first lookup that misses
         Optional<ProductCategory> categoryOptional = productCategoryRepository.findById(id);
         if (categoryOptional.isEmpty()) {
             throw new ProductCategoryNotFoundException(id);
         }
-
+        reload();
         return categoryOptional.get();
     }
 
     public List<ProductCategory> getAllCategories() {
-        return productCategoryRepository.findAll();
+        return snapshot().all();
+    }
+
+    // Runs after the startup runners so categories they seed are part of the first snapshot
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${catalog.category-snapshot.refresh-interval-ms:300000}",
+            initialDelayString = "${catalog.category-snapshot.refresh-interval-ms:300000}")
+    public synchronized void reload() {
+        List<ProductCategory> categories = List.copyOf(productCategoryRepository.findAll());
+        Map<Long, ProductCategory> byId = categories.stream()
+                .collect(Collectors.toUnmodifiableMap(ProductCategory::getId, Function.identity()));
+        snapshot = new CategorySnapshot(byId, categories, eTag(categories));
+    }
+
+    private CategorySnapshot snapshot() {
+        CategorySnapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    // Strong ETag of the category list, computed once per snapshot
+    public String getCategoriesETag() {
+        return snapshot().eTag();
+    }
+
+    private static String eTag(List<ProductCategory> categories) {
+        StringBuilder content = new StringBuilder();
+        for (ProductCategory category : categories) {
+            content.append(category.getId()).append('\0').append(category.getName()).append('\0');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
+
+    private record CategorySnapshot(Map<Long, ProductCategory> byId, List<ProductCategory> all, String eTag) {}
 }
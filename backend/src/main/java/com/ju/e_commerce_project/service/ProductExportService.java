@@ -0,0 +1,87 @@
+package com.ju.e_commerce_project.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ju.e_commerce_project.dto.response.ProductExportRecord;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as NDJSON, one product per line in id order. Products are read through a
+ * database cursor and the persistence context is cleared every few hundred rows, so memory use
+ * does not depend on the size of the catalog.
+ */
+@Service
+public class ProductExportService {
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final int clearInterval;
+
+    public ProductExportService(
+            ProductRepository productRepository,
+            EntityManager entityManager,
+            ObjectMapper objectMapper,
+            @Value("${catalog.export.clear-interval:500}") int clearInterval
+    ) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        // Flushed every clearInterval rows rather than after each one
+        this.writer = objectMapper.writerFor(ProductExportRecord.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.clearInterval = clearInterval;
+    }
+
+    /**
+     * Writes every product, or only those of the seller when {@code sellerUsername} is not null,
+     * and returns the number written.
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(String sellerUsername, OutputStream output) throws IOException {
+        long written = 0;
+        try (Stream<Product> products = sellerUsername != null ? productRepository.streamBySeller(sellerUsername) : productRepository.streamAll();
+             JsonGenerator generator = writer.createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, toRecord(iterator.next()));
+                if (++written % clearInterval == 0) {
+                    // The products written so far are never read again
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return written;
+    }
+
+    private static ProductExportRecord toRecord(Product product) {
+        return new ProductExportRecord(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getCategory() != null ? product.getCategory().getName() : null,
+                product.getSeller() != null ? product.getSeller().getUsername() : null,
+                product.getCreatedAt(),
+                product.getUpdatedAt()
+        );
+    }
+}
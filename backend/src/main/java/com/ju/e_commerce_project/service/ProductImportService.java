@@ -0,0 +1,284 @@
+package com.ju.e_commerce_project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ju.e_commerce_project.cache.ProductListingCache;
+import com.ju.e_commerce_project.dto.request.AddProductRequest;
+import com.ju.e_commerce_project.dto.response.ProductImportError;
+import com.ju.e_commerce_project.dto.response.ProductImportResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.exception.ProductCategoryNotFoundException;
+import com.ju.e_commerce_project.importer.ProductImportFormat;
+import com.ju.e_commerce_project.importer.ProductRow;
+import com.ju.e_commerce_project.importer.ProductRowReader;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.repository.IdAllocator;
+import com.ju.e_commerce_project.search.ProductDocument;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import com.ju.e_commerce_project.search.ProductSuggester;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a seller's products from a CSV or NDJSON stream. Records are read and validated one at a
+ * time and written with JDBC batch inserts, one transaction per chunk, so memory use does not grow
+ * with the size of the file. Invalid records are reported by line and skipped; they do not stop
+ * the rest of the file from being imported.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products (id, name, description, price, category_id, seller_id, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int MAX_NAME_LENGTH = 255;
+    // products.price is DECIMAL(10, 2)
+    private static final int PRICE_SCALE = 2;
+    private static final int PRICE_INTEGER_DIGITS = 8;
+    private static final int MAX_REMEMBERED_UNKNOWN_CATEGORIES = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final AuthService authService;
+    private final ProductCategoryService productCategoryService;
+    private final ProductListingCache productListingCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(
+            JdbcTemplate jdbcTemplate,
+            IdAllocator idAllocator,
+            TransactionTemplate transactionTemplate,
+            AuthService authService,
+            ProductCategoryService productCategoryService,
+            ProductListingCache productListingCache,
+            ProductSearchIndex productSearchIndex,
+            ProductSuggester productSuggester,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${catalog.import.chunk-size:1000}") int chunkSize,
+            @Value("${catalog.import.max-reported-errors:100}") int maxReportedErrors
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.authService = authService;
+        this.productCategoryService = productCategoryService;
+        this.productListingCache = productListingCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggester = productSuggester;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ProductImportResponse importProducts(String sellerUsername, ProductImportFormat format, InputStream input, Charset charset) {
+        User seller = authService.findUserByUsername(sellerUsername);
+        Import run = new Import(seller);
+
+        try (ProductRowReader reader = format.open(new BufferedReader(new InputStreamReader(input, charset)), objectMapper)) {
+            ProductRow row;
+            while ((row = reader.next()) != null) {
+                if (row.error() != null) {
+                    run.fail(row.line(), row.error());
+                    continue;
+                }
+                ValidRow validRow = validate(row, run);
+                if (validRow != null) {
+                    run.chunk.add(validRow);
+                    if (run.chunk.size() == chunkSize) {
+                        write(run);
+                    }
+                }
+            }
+            if (!run.chunk.isEmpty()) {
+                write(run);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new ProductImportResponse(run.imported, run.failed, List.copyOf(run.errors));
+    }
+
+    private ValidRow validate(ProductRow row, Import run) {
+        AddProductRequest request = row.request();
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<AddProductRequest> violation : validator.validate(request)) {
+            errors.add(violation.getMessage());
+        }
+        errors.sort(null);
+        if (request.name() != null && request.name().length() > MAX_NAME_LENGTH) {
+            errors.add("Name must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+        BigDecimal price = request.price();
+        if (price != null) {
+            if (price.signum() < 0) {
+                errors.add("Price must not be negative");
+            } else if (price.stripTrailingZeros().scale() > PRICE_SCALE) {
+                errors.add("Price must have at most " + PRICE_SCALE + " decimal places");
+            } else if (price.precision() - price.scale() > PRICE_INTEGER_DIGITS) {
+                errors.add("Price is too large");
+            }
+        }
+        ProductCategory category = null;
+        if (request.categoryId() != null) {
+            category = findCategory(request.categoryId(), run);
+            if (category == null) {
+                errors.add("Product category with id " + request.categoryId() + " not found");
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            run.fail(row.line(), String.join("; ", errors));
+            return null;
+        }
+        return new ValidRow(row.line(), request, category);
+    }
+
+    // Categories come from the in-memory snapshot; only an id it does not know goes to the database,
+    // and an id found missing there is not looked up again for the rest of the file
+    private ProductCategory findCategory(Long categoryId, Import run) {
+        if (run.unknownCategoryIds.contains(categoryId)) {
+            return null;
+        }
+        try {
+            return productCategoryService.findCategoryById(categoryId);
+        } catch (ProductCategoryNotFoundException e) {
+            if (run.unknownCategoryIds.size() < MAX_REMEMBERED_UNKNOWN_CATEGORIES) {
+                run.unknownCategoryIds.add(categoryId);
+            }
+            return null;
+        }
+    }
+
+    private void write(Import run) {
+        List<ValidRow> rows = run.chunk;
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(rows, run.seller));
+            run.imported += rows.size();
+        } catch (DataAccessException e) {
+            logger.warn("Product import chunk of {} rows starting at line {} failed; retrying it in halves", rows.size(), rows.get(0).line(), e);
+            writeHalves(rows, run);
+        }
+        run.chunk = new ArrayList<>(chunkSize);
+    }
+
+    // Halves a failed chunk until the rows that cannot be saved stand alone, so the rest of it is still imported
+    private void writeHalves(List<ValidRow> rows, Import run) {
+        if (rows.size() == 1) {
+            run.fail(rows.get(0).line(), "Could not be saved");
+            return;
+        }
+        int half = rows.size() / 2;
+        for (List<ValidRow> part : List.of(rows.subList(0, half), rows.subList(half, rows.size()))) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(part, run.seller));
+                run.imported += part.size();
+            } catch (DataAccessException e) {
+                writeHalves(part, run);
+            }
+        }
+    }
+
+    // The search index, suggester and listing cache take the chunk once it has committed
+    private void insert(List<ValidRow> rows, User seller) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long[] ids = new long[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idAllocator.nextId(Product.class);
+        }
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                ValidRow row = rows.get(i);
+                statement.setLong(1, ids[i]);
+                statement.setString(2, row.request().name());
+                if (row.request().description() != null) {
+                    statement.setString(3, row.request().description());
+                } else {
+                    statement.setNull(3, Types.VARCHAR);
+                }
+                statement.setBigDecimal(4, row.request().price());
+                statement.setLong(5, row.category().getId());
+                statement.setLong(6, seller.getUserId());
+                statement.setTimestamp(7, now);
+                statement.setTimestamp(8, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+
+        List<ProductDocument> documents = new ArrayList<>(rows.size());
+        List<ProductSuggestion> suggestions = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ValidRow row = rows.get(i);
+            documents.add(new ProductDocument(ids[i], row.request().name(), row.request().description(), row.request().price(),
+                    row.category().getId(), row.category().getName(), seller.getUsername()));
+            suggestions.add(new ProductSuggestion(ids[i], row.request().name()));
+        }
+        productListingCache.invalidateCategories(rows.stream().map(row -> row.category().getId()).collect(Collectors.toSet()));
+        productSearchIndex.indexAll(documents);
+        productSuggester.putAll(suggestions);
+    }
+
+    private record ValidRow(long line, AddProductRequest request, ProductCategory category) {}
+
+    private final class Import {
+
+        private final User seller;
+        private final Set<Long> unknownCategoryIds = new HashSet<>();
+        private final List<ProductImportError> errors = new ArrayList<>();
+        private List<ValidRow> chunk = new ArrayList<>(chunkSize);
+        private int imported;
+        private int failed;
+
+        Import(User seller) {
+            this.seller = seller;
+        }
+
+        // Every failure is counted, but only the first few are listed
+        void fail(long line, String error) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(line, error));
+            }
+        }
+    }
+}
@@ -1,36 +1,71 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.ProductListingCache;
 import com.ju.e_commerce_project.dto.request.AddProductRequest;
 import com.ju.e_commerce_project.dto.request.UpdateProductRequest;
+import com.ju.e_commerce_project.dto.response.ProductBrowseResponse;
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSearchResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.exception.InvalidInputException;
 import com.ju.e_commerce_project.exception.ProductNotFoundException;
 import com.ju.e_commerce_project.exception.UnauthorizedOperationException;
 import com.ju.e_commerce_project.model.Product;
 import com.ju.e_commerce_project.model.ProductCategory;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.ResourceVersion;
+import com.ju.e_commerce_project.search.ProductDocument;
+import com.ju.e_commerce_project.search.ProductQuery;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import com.ju.e_commerce_project.search.ProductSort;
+import com.ju.e_commerce_project.search.ProductSuggester;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
     private final AuthService authService;
     private final ProductCategoryService productCategoryService;
+    private final ProductListingCache productListingCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggester productSuggester;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     public ProductService(
             ProductRepository productRepository,
             ProductCategoryService productCategoryService,
-            AuthService authService
+            AuthService authService,
+            ProductListingCache productListingCache,
+            ProductSearchIndex productSearchIndex,
+            ProductSuggester productSuggester,
+            @Value("${catalog.page-size.default:20}") int defaultPageSize,
+            @Value("${catalog.page-size.max:100}") int maxPageSize
     ) {
         this.productRepository = productRepository;
         this.productCategoryService = productCategoryService;
         this.authService = authService;
+        this.productListingCache = productListingCache;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggester = productSuggester;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     public Product addProduct(AddProductRequest productRequest) {
@@ -48,15 +83,123 @@ public class ProductService {
                 user
         );
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        productListingCache.invalidateCategories(List.of(category.getId()));
+        productSearchIndex.index(ProductDocument.of(savedProduct));
+        productSuggester.put(savedProduct.getId(), savedProduct.getName());
+        return savedProduct;
     }
 
-    public List<Product> getProductsByCategory(Long categoryId) {
-        return productRepository.findByCategoryId(categoryId);
+    /**
+     * Returns the page of products in the category that follows the cursor, ordered by id.
+     * The query seeks on (category_id, id), so every page costs the same regardless of depth.
+     * Without the description the TEXT column is not read at all.
+     */
+    public ProductPageResponse getProductsByCategory(Long categoryId, String cursor, Integer size, boolean includeDescription) {
+        int pageSize = pageSize(size);
+        Long afterId = decodeCursor(cursor);
+        ProductListingCache.ListingKey key = new ProductListingCache.ListingKey(categoryId, afterId, pageSize, includeDescription);
+        ProductPageResponse cachedPage = productListingCache.get(key);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        long epoch = productListingCache.epoch();
+        Limit limit = Limit.of(pageSize + 1);
+        List<ProductResponse> products = includeDescription
+                ? productRepository.findResponsesByCategory(categoryId, afterId, limit)
+                : productRepository.findSummariesByCategory(categoryId, afterId, limit);
+        ProductPageResponse page = toPage(products, pageSize);
+        productListingCache.put(key, page, epoch);
+        return page;
+    }
+
+    public ProductPageResponse getProductsBySeller(String sellerUsername, String cursor, Integer size, boolean includeDescription) {
+        int pageSize = pageSize(size);
+        Long afterId = decodeCursor(cursor);
+        Limit limit = Limit.of(pageSize + 1);
+        List<ProductResponse> products = includeDescription
+                ? productRepository.findResponsesBySeller(sellerUsername, afterId, limit)
+                : productRepository.findSummariesBySeller(sellerUsername, afterId, limit);
+        return toPage(products, pageSize);
+    }
+
+    // Answered from the in-memory index; hits leave the description out like the list views do
+    public ProductSearchResponse searchProducts(String query, Integer size) {
+        return productSearchIndex.search(query, pageSize(size));
+    }
+
+    public List<ProductSuggestion> suggestProducts(String prefix, Integer size) {
+        int limit = size == null ? ProductSuggester.MAX_SUGGESTIONS : Math.min(Math.max(size, 1), ProductSuggester.MAX_SUGGESTIONS);
+        return productSuggester.suggest(prefix, limit);
+    }
+
+    /**
+     * Filters and sorts the catalog in memory and returns one page with facet counts. The cursor
+     * carries the offset into the sorted results.
+     */
+    public ProductBrowseResponse browseProducts(String query, Set<Long> categoryIds, BigDecimal minPrice, BigDecimal maxPrice,
+                                                Set<String> sellers, String sort, String cursor, Integer size) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new InvalidInputException("minPrice must not be greater than maxPrice");
+        }
+        ProductSort productSort = null;
+        if (sort != null && !sort.isEmpty()) {
+            productSort = ProductSort.fromParameter(sort);
+            if (productSort == null) {
+                throw new InvalidInputException("Unknown sort: " + sort);
+            }
+        }
+        int pageSize = pageSize(size);
+        long offset = decodeCursor(cursor);
+        if (offset < 0 || offset > Integer.MAX_VALUE - pageSize) {
+            throw new InvalidInputException("Invalid cursor");
+        }
+
+        ProductBrowseResponse page = productSearchIndex.browse(new ProductQuery(
+                query, categoryIds, minPrice, maxPrice, sellers, productSort, (int) offset, pageSize));
+        String next = offset + page.items().size() < page.total() ? encodeCursor(offset + page.items().size()) : null;
+        return new ProductBrowseResponse(page.items(), page.total(), next, page.facets());
+    }
+
+    // Validators for conditional GETs: one aggregate over the index instead of loading the listing
+    public ResourceVersion getCategoryListingVersion(Long categoryId) {
+        return productRepository.findVersionByCategory(categoryId);
+    }
+
+    public ResourceVersion getSellerListingVersion(String sellerUsername) {
+        return productRepository.findVersionBySeller(sellerUsername);
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        return Math.min(Math.max(size, 1), maxPageSize);
     }
 
-    public List<Product> getProductsBySeller(String sellerUsername) {
-        return productRepository.findBySellerUsername(sellerUsername);
+    // One extra row is fetched to learn whether another page exists without a count query
+    private static ProductPageResponse toPage(List<ProductResponse> products, int pageSize) {
+        if (products.size() <= pageSize) {
+            return new ProductPageResponse(List.copyOf(products), null);
+        }
+        List<ProductResponse> page = List.copyOf(products.subList(0, pageSize));
+        return new ProductPageResponse(page, encodeCursor(page.get(pageSize - 1).id()));
+    }
+
+    private static String encodeCursor(Long position) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidInputException("Invalid cursor");
+        }
     }
 
     @Transactional
@@ -72,12 +215,18 @@ public class ProductService {
         product.setDescription(updateRequest.description());
         product.setPrice(updateRequest.price());
 
+        Long previousCategoryId = categoryIdOf(product);
         if (updateRequest.categoryId() != null) {
             ProductCategory newCategory = productCategoryService.findCategoryById(updateRequest.categoryId());
             product.setCategory(newCategory);
         }
 
-        return productRepository.save(product);
+        // A product that moved shows up in two listings
+        productListingCache.invalidateCategories(Arrays.asList(previousCategoryId, categoryIdOf(product)));
+        Product savedProduct = productRepository.save(product);
+        productSearchIndex.index(ProductDocument.of(savedProduct));
+        productSuggester.put(savedProduct.getId(), savedProduct.getName());
+        return savedProduct;
     }
 
     @Transactional
@@ -90,5 +239,12 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        productListingCache.invalidateCategories(Arrays.asList(categoryIdOf(product)));
+        productSearchIndex.remove(productId);
+        productSuggester.remove(productId);
+    }
+
+    private static Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
     }
 }
@@ -0,0 +1,101 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.exception.InvalidRefreshTokenException;
+import com.ju.e_commerce_project.model.RefreshToken;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HexFormat;
+
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final long refreshTokenTtlMillis;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Autowired
+    public RefreshTokenService(
+            RefreshTokenRepository refreshTokenRepository,
+            @Value("${security.refresh-token.ttl-days:14}") long refreshTokenTtlDays
+    ) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenTtlMillis = refreshTokenTtlDays * 24 * 60 * 60 * 1000;
+    }
+
+    public String createRefreshToken(User user) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+
+        refreshTokenRepository.save(new RefreshToken(user, hash(token), new Date(System.currentTimeMillis() + refreshTokenTtlMillis)));
+        return token;
+    }
+
+    /**
+     * Consumes the given refresh token and issues a replacement. A token can only be used once,
+     * so a replayed token is rejected, and a token issued before the user's tokens were revoked
+     * is rejected as well.
+     */
+    @Transactional
+    public RotatedRefreshToken rotate(String token) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHashWithUser(hash(token))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+
+        if (refreshToken.getExpiresAt().before(new Date())) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        // Catches a token issued by a refresh that raced with TokenVersionService.revokeAllTokens
+        if (refreshToken.getTokenVersion() != refreshToken.getUser().getTokenVersion()) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+        // Conditional delete so that two concurrent refreshes with the same token cannot both succeed
+        if (refreshTokenRepository.deleteTokenById(refreshToken.getId()) == 0) {
+            throw new InvalidRefreshTokenException("Invalid refresh token");
+        }
+
+        User user = refreshToken.getUser();
+        return new RotatedRefreshToken(user, createRefreshToken(user));
+    }
+
+    @Transactional
+    public void revoke(String token) {
+        refreshTokenRepository.deleteByTokenHash(hash(token));
+    }
+
+    @Scheduled(fixedDelayString = "${security.refresh-token.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpiredTokens() {
+        int purged = refreshTokenRepository.deleteExpired(new Date());
+        if (purged > 0) {
+            logger.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public record RotatedRefreshToken(User user, String refreshToken) {}
+}
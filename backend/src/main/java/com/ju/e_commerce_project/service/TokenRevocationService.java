@@ -0,0 +1,108 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.cache.BloomFilter;
+import com.ju.e_commerce_project.model.RevokedToken;
+import com.ju.e_commerce_project.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Revocation list of access tokens keyed by their jti. The table is mirrored in a Bloom filter so the
+ * common "not revoked" answer needs no database access; only a Bloom hit is confirmed against the table.
+ * Revocations made by other instances reach the filter at the next refresh, so a token revoked
+ * elsewhere may still be accepted for up to {@code security.jwt.revocation.refresh-interval-ms}.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final int expectedEntries;
+    private final double falsePositiveProbability;
+    private final long refreshOverlapMillis;
+    private final Object writeLock = new Object();
+
+    private volatile BloomFilter revokedJtis;
+    // Start of the last read of the table; guarded by writeLock
+    private long refreshedAt;
+
+    @Autowired
+    public TokenRevocationService(
+            RevokedTokenRepository revokedTokenRepository,
+            @Value("${security.jwt.revocation.expected-entries:100000}") int expectedEntries,
+            @Value("${security.jwt.revocation.false-positive-probability:0.01}") double falsePositiveProbability,
+            @Value("${security.jwt.revocation.refresh-overlap-ms:60000}") long refreshOverlapMillis
+    ) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.refreshOverlapMillis = refreshOverlapMillis;
+    }
+
+    @PostConstruct
+    public void loadRevokedTokens() {
+        rebuild();
+    }
+
+    public void revoke(Claims claims) {
+        if (claims.getId() == null) {
+            return;
+        }
+        // Serialized with rebuild() so a revocation cannot be lost while the filter is being replaced
+        synchronized (writeLock) {
+            revokedTokenRepository.save(new RevokedToken(claims.getId(), claims.getExpiration()));
+            revokedJtis.put(claims.getId());
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null || !revokedJtis.mightContain(jti)) {
+            return false;
+        }
+        return revokedTokenRepository.existsById(jti);
+    }
+
+    // Reads back past the last refresh by the overlap, so rows committed late or stamped by a clock behind this one are not missed
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        synchronized (writeLock) {
+            long now = System.currentTimeMillis();
+            List<String> jtis = revokedTokenRepository.findActiveJtisRevokedSince(new Date(refreshedAt - refreshOverlapMillis), new Date(now));
+            jtis.forEach(revokedJtis::put);
+            refreshedAt = now;
+        }
+    }
+
+    // Tokens past their natural expiry are rejected anyway, so their rows can go and the filter can shrink
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.purge-interval-ms:600000}")
+    @Transactional
+    public void purgeExpired() {
+        int purged = revokedTokenRepository.deleteExpired(new Date());
+        if (purged > 0) {
+            logger.info("Purged {} expired token revocations", purged);
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        synchronized (writeLock) {
+            long now = System.currentTimeMillis();
+            List<String> activeJtis = revokedTokenRepository.findActiveJtis(new Date(now));
+            BloomFilter bloomFilter = new BloomFilter(Math.max(expectedEntries, activeJtis.size() * 2), falsePositiveProbability);
+            activeJtis.forEach(bloomFilter::put);
+            revokedJtis = bloomFilter;
+            refreshedAt = now;
+        }
+    }
+}
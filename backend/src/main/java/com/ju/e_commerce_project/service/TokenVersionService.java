@@ -0,0 +1,75 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.cache.BoundedCache;
+import com.ju.e_commerce_project.cache.CacheStats;
+import com.ju.e_commerce_project.cache.UserDetailsCache;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.repository.RefreshTokenRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tracks the current token version of each user. Access and refresh tokens carry the version they
+ * were issued with, so bumping the version revokes every token issued before a role change or
+ * account lock.
+ */
+@Service
+public class TokenVersionService {
+
+    private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final BoundedCache<Long, Integer> versions;
+    private final long ttlMillis;
+
+    public TokenVersionService(
+            UserRepository userRepository,
+            RefreshTokenRepository refreshTokenRepository,
+            UserDetailsCache userDetailsCache,
+            @Value("${security.jwt.token-version-cache-size:10000}") int cacheSize,
+            @Value("${security.jwt.token-version-ttl-seconds:60}") long ttlSeconds
+    ) {
+        this.userRepository = userRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.versions = new BoundedCache<>(cacheSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer currentVersion = versions.get(userId);
+        if (currentVersion == null) {
+            currentVersion = userRepository.findTokenVersionByUserId(userId).orElse(null);
+            if (currentVersion == null) {
+                return false;
+            }
+            versions.put(userId, currentVersion, System.currentTimeMillis() + ttlMillis);
+        }
+        return currentVersion == tokenVersion;
+    }
+
+    // Call on every role, password or lock change so cached user data and outstanding tokens are dropped
+    @Transactional
+    public void revokeAllTokens(User user) {
+        Long userId = user.getUserId();
+        userRepository.incrementTokenVersion(userId);
+        // Otherwise the next refresh would mint a fresh access token at the new version
+        refreshTokenRepository.deleteByUserId(userId);
+        userDetailsCache.invalidate(user.getUsername());
+        // Drop the cached version only once the new one is visible to other transactions
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.invalidate(userId);
+            }
+        });
+    }
+
+    public CacheStats cacheStats() {
+        return versions.stats();
+    }
+}
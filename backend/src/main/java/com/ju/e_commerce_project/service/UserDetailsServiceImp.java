@@ -1,5 +1,6 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,14 +18,21 @@ import java.util.Optional;
 public class UserDetailsServiceImp implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Autowired
-    public UserDetailsServiceImp(UserRepository userRepository) {
+    public UserDetailsServiceImp(UserRepository userRepository, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserDetails cachedUserDetails = userDetailsCache.get(username);
+        if (cachedUserDetails != null) {
+            return cachedUserDetails;
+        }
+
         Optional<User> userOptional = userRepository.findByUsername(username);
         if (userOptional.isEmpty()) {
             throw new UsernameNotFoundException("User not found with username: " + username);
@@ -35,10 +43,12 @@ public class UserDetailsServiceImp implements UserDetailsService {
         authorities.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())); // "ROLE_CUSTOMER", "ROLE_SELLER", etc.
 
         // Build a UserDetails object.
-        return new org.springframework.security.core.userdetails.User(
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
                 user.getUsername(),
                 user.getPassword(),
                 authorities
         );
+        userDetailsCache.put(userDetails);
+        return userDetails;
     }
 }
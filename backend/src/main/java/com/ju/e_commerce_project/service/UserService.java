@@ -1,6 +1,8 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.dto.request.UpdateUserRequest;
+import com.ju.e_commerce_project.exception.ResourceNotFoundException;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,10 +14,14 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final TokenVersionService tokenVersionService;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserDetailsCache userDetailsCache, TokenVersionService tokenVersionService) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenVersionService = tokenVersionService;
     }
 
     @Transactional
@@ -28,7 +34,17 @@ public class UserService {
         user.setPhoneNumber(updateUserRequest.phoneNumber());
         user.setAddress(updateUserRequest.address());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        userDetailsCache.invalidate(username);
+        return savedUser;
+    }
+
+    // An admin action on another account, so an unknown username is a missing resource rather than a failed login
+    @Transactional
+    public void revokeAllTokens(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
+        tokenVersionService.revokeAllTokens(user);
     }
 
     public User getUserProfile(String username) {
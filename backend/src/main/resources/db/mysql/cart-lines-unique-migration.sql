@@ -0,0 +1,24 @@
+-- Adds the unique key on cart_items (cart_id, product_id) to an existing MySQL database.
+--
+-- Older versions added to a cart by reading the line and inserting it when missing, so two
+-- concurrent adds of the same product could leave two lines. This script folds such duplicates
+-- into the line with the smallest id, summing their quantities, and then adds the key that the
+-- single-statement upserts depend on. Run it once, with the application stopped, before starting
+-- this version; ddl-auto=update does not add the key while duplicates exist.
+
+UPDATE cart_items kept
+JOIN (
+    SELECT MIN(id) AS id, SUM(quantity) AS quantity
+    FROM cart_items
+    GROUP BY cart_id, product_id
+    HAVING COUNT(*) > 1
+) merged ON merged.id = kept.id
+SET kept.quantity = merged.quantity;
+
+DELETE duplicate FROM cart_items duplicate
+JOIN cart_items kept
+    ON kept.cart_id = duplicate.cart_id
+    AND kept.product_id = duplicate.product_id
+    AND kept.id < duplicate.id;
+
+ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
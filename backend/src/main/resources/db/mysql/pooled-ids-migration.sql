@@ -0,0 +1,41 @@
+-- Moves an existing MySQL database from AUTO_INCREMENT ids to the pooled id tables.
+--
+-- MySQL has no sequences, so each entity's generator keeps its next id in a one-row table named
+-- <table>_seq. Run this once, with the application stopped, before starting the version that
+-- generates ids this way; otherwise Hibernate creates the tables starting at 1 and the first
+-- inserts collide with existing rows. It is safe to run again.
+--
+-- The AUTO_INCREMENT attribute of the id columns can stay: the application always supplies the id,
+-- and MySQL keeps the counter above the largest id, so a rollback keeps working.
+
+CREATE TABLE IF NOT EXISTS users_seq (next_val BIGINT);
+DELETE FROM users_seq;
+INSERT INTO users_seq (next_val) SELECT COALESCE(MAX(user_id), 0) + 1 FROM users;
+
+CREATE TABLE IF NOT EXISTS categories_seq (next_val BIGINT);
+DELETE FROM categories_seq;
+INSERT INTO categories_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM categories;
+
+CREATE TABLE IF NOT EXISTS products_seq (next_val BIGINT);
+DELETE FROM products_seq;
+INSERT INTO products_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM products;
+
+CREATE TABLE IF NOT EXISTS carts_seq (next_val BIGINT);
+DELETE FROM carts_seq;
+INSERT INTO carts_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM carts;
+
+CREATE TABLE IF NOT EXISTS cart_items_seq (next_val BIGINT);
+DELETE FROM cart_items_seq;
+INSERT INTO cart_items_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM cart_items;
+
+CREATE TABLE IF NOT EXISTS orders_seq (next_val BIGINT);
+DELETE FROM orders_seq;
+INSERT INTO orders_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM orders;
+
+CREATE TABLE IF NOT EXISTS order_items_seq (next_val BIGINT);
+DELETE FROM order_items_seq;
+INSERT INTO order_items_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM order_items;
+
+CREATE TABLE IF NOT EXISTS refresh_tokens_seq (next_val BIGINT);
+DELETE FROM refresh_tokens_seq;
+INSERT INTO refresh_tokens_seq (next_val) SELECT COALESCE(MAX(id), 0) + 1 FROM refresh_tokens;
@@ -5,6 +5,9 @@ import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.model.UserRole;
 import com.ju.e_commerce_project.repository.UserRepository;
 import com.ju.e_commerce_project.service.JwtService;
+import com.ju.e_commerce_project.service.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -50,6 +53,9 @@ class AuthorizationTest {
     @MockBean
     private AuthenticationManager authenticationManager;
 
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
     @Mock
     private JwtAuthFilter jwtAuthFilter;
 
@@ -68,9 +74,22 @@ class AuthorizationTest {
                 .andExpect(MockMvcResultMatchers.status().isOk());
     }
 
+    @Test
+    void givenSearchEndpoint_whenRequestWithoutToken_thenReturnsOk() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/search").param("q", "laptop"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
+    @Test
+    void givenBrowseEndpoint_whenRequestWithoutToken_thenReturnsOk() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products").param("category", "1").param("sort", "price_asc"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+    }
+
     @Test
     void givenAuthEndpoint_whenRequestWithoutToken_thenReturnsOk() throws Exception {
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches("password", "encodedPassword")).thenReturn(true);
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -89,8 +108,9 @@ class AuthorizationTest {
     void givenSellerEndpoint_whenRequestWithCustomerRole_thenReturnsForbidden() throws Exception {
         UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername("testuser").password("encodedPassword").roles(UserRole.Customer.name()).build();
         when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
-        when(jwtService.extractUsername(jwtToken)).thenReturn("testuser");
-        when(jwtService.isTokenValid(jwtToken, userDetails)).thenReturn(true);
+        Claims claims = Jwts.claims().subject("testuser").build();
+        when(jwtService.extractAllClaims(jwtToken)).thenReturn(claims);
+        when(jwtService.isTokenValid(claims, userDetails)).thenReturn(true);
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/products/")
@@ -105,4 +125,36 @@ class AuthorizationTest {
         mockMvc.perform(MockMvcRequestBuilders.get("/api/products/"))
                 .andExpect(MockMvcResultMatchers.status().isForbidden());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"Customer"})
+    void givenImportEndpoint_whenRequestWithCustomerRole_thenReturnsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/import")
+                        .contentType("text/csv")
+                        .content("name,price,categoryId\nTest Product,10.00,1\n"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"Customer"})
+    void givenBulkUpdateEndpoint_whenRequestWithCustomerRole_thenReturnsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/products/bulk-update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rule\":{\"percent\":-10}}"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"Customer"})
+    void givenExportEndpoint_whenRequestWithCustomerRole_thenReturnsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/products/export"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser", roles = {"Seller"})
+    void givenAdminExportEndpoint_whenRequestWithSellerRole_thenReturnsForbidden() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/admin/products/export"))
+                .andExpect(MockMvcResultMatchers.status().isForbidden());
+    }
+}
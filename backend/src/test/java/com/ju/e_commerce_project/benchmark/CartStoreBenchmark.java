@@ -0,0 +1,161 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.cart.WriteBehindCartStore;
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartItemRequest;
+import com.ju.e_commerce_project.dto.response.CartDeltaResponse;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.CartService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs the same cart traffic against the JPA store and the write-behind store and reports the
+ * changes per second of each. Eight threads share 400 customers; each change adds a product or
+ * sets the quantity of the line it added, with the delta response. The write-behind run also
+ * reports how long writing all dirty carts takes afterwards. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class CartStoreBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int CUSTOMERS = 400;
+    private static final int PRODUCTS = 200;
+    private static final int CHANGES_PER_THREAD = 5_000;
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(properties = {"spring.jpa.show-sql=false", "cart.store=jpa"})
+    class Jpa {
+
+        @Autowired
+        private CartService cartService;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private ProductCategoryRepository productCategoryRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Test
+        void cartChanges() throws Exception {
+            Workload workload = Workload.create(productRepository, productCategoryRepository, userRepository);
+            long elapsedMillis = workload.run(cartService);
+            System.out.printf("jpa: %d changes in %d ms, %.0f changes/s%n",
+                    workload.changes(), elapsedMillis, workload.changes() * 1000.0 / elapsedMillis);
+        }
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(properties = {"spring.jpa.show-sql=false", "cart.store=write-behind",
+            "cart.write-behind.log-dir=build/tmp/cart-store-benchmark-log", "cart.write-behind.flush-interval-ms=1000"})
+    class WriteBehind {
+
+        @Autowired
+        private CartService cartService;
+
+        @Autowired
+        private WriteBehindCartStore writeBehindCartStore;
+
+        @Autowired
+        private ProductRepository productRepository;
+
+        @Autowired
+        private ProductCategoryRepository productCategoryRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Test
+        void cartChanges() throws Exception {
+            Workload workload = Workload.create(productRepository, productCategoryRepository, userRepository);
+            long elapsedMillis = workload.run(cartService);
+            long start = System.nanoTime();
+            writeBehindCartStore.flush();
+            long flushMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("write-behind: %d changes in %d ms, %.0f changes/s; final flush of %d carts in %d ms%n",
+                    workload.changes(), elapsedMillis, workload.changes() * 1000.0 / elapsedMillis, CUSTOMERS, flushMillis);
+        }
+    }
+
+    private record Workload(List<String> usernames, List<Long> productIds) {
+
+        static Workload create(ProductRepository productRepository, ProductCategoryRepository productCategoryRepository,
+                               UserRepository userRepository) {
+            ProductCategory category = productCategoryRepository.save(new ProductCategory("Cart Bench " + System.nanoTime()));
+            User seller = userRepository.save(new User("cart-bench-seller", "encodedPassword", "cart-bench-seller@example.com",
+                    "Cart", "Bench", "1234567890", "Bench Address", UserRole.Seller));
+            List<Long> productIds = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i++) {
+                productIds.add(productRepository.save(new Product("Cart Bench Product " + i, "Description " + i,
+                        new BigDecimal("9.99"), category, seller)).getId());
+            }
+            List<String> usernames = new ArrayList<>();
+            for (int i = 0; i < CUSTOMERS; i++) {
+                usernames.add(userRepository.save(new User("cart-bench-" + i, "encodedPassword", "cart-bench-" + i + "@example.com",
+                        "Cart", "Bench", "1234567890", "Bench Address", UserRole.Customer)).getUsername());
+            }
+            return new Workload(usernames, productIds);
+        }
+
+        int changes() {
+            return THREADS * CHANGES_PER_THREAD;
+        }
+
+        // Warms up on a tenth of the traffic first, then returns the wall time of the rest
+        long run(CartService cartService) throws Exception {
+            runThreads(cartService, CHANGES_PER_THREAD / 10);
+            long start = System.nanoTime();
+            runThreads(cartService, CHANGES_PER_THREAD);
+            return (System.nanoTime() - start) / 1_000_000;
+        }
+
+        private void runThreads(CartService cartService, int changesPerThread) throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    results.add(executor.submit(() -> {
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < changesPerThread; i++) {
+                            String username = usernames.get(random.nextInt(usernames.size()));
+                            Long productId = productIds.get(random.nextInt(productIds.size()));
+                            CartDeltaResponse added = cartService.addItemToCartDelta(username, new AddItemToCartRequest(productId, 1));
+                            if (random.nextBoolean() && ++i < changesPerThread) {
+                                cartService.updateCartItemDelta(username, added.item().cartItemId(), new UpdateCartItemRequest(1 + random.nextInt(5)));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
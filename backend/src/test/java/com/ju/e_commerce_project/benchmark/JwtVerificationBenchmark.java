@@ -0,0 +1,71 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+
+/**
+ * Compares the per-request token work of the old filter path (three parses, key rebuilt each time)
+ * with the cached single-verification path. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class JwtVerificationBenchmark {
+
+    private static final String SECRET_KEY = "5367566859703373367639792F423F452848284D6251655468576D5A71347437";
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 200_000;
+
+    private final JwtService jwtService = new JwtService(SECRET_KEY, 10_000, 15);
+    private final UserDetails userDetails = User.withUsername("testuser").password("encodedPassword").roles("Customer").build();
+
+    @Test
+    void tokenVerificationPerRequest() {
+        String token = jwtService.generateToken(userDetails);
+
+        run("before (3 parses, key per parse)", () -> {
+            String username = parseUncached(token).getSubject();
+            boolean valid = parseUncached(token).getSubject().equals(username)
+                    && !parseUncached(token).getExpiration().before(new Date());
+            return valid;
+        });
+        run("after (verified once, cached claims)", () -> {
+            Claims claims = jwtService.extractAllClaims(token);
+            return jwtService.isTokenValid(claims, userDetails);
+        });
+    }
+
+    private static Claims parseUncached(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    private static void run(String name, BenchmarkTask task) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            if (!task.run()) {
+                throw new IllegalStateException("Token rejected during benchmark");
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-40s %8.0f ns/request%n", name, (double) elapsed / ITERATIONS);
+    }
+
+    @FunctionalInterface
+    private interface BenchmarkTask {
+        boolean run();
+    }
+}
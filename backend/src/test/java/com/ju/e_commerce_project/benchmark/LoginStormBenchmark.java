@@ -0,0 +1,75 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.dto.request.LoginUserRequest;
+import com.ju.e_commerce_project.dto.request.RegisterUserRequest;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.AuthService;
+import com.ju.e_commerce_project.service.JwtService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Counts the SQL statements and wall time of a burst of logins against the in-memory database,
+ * comparing the old three-lookup pipeline with the single-lookup one. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class LoginStormBenchmark {
+
+    private static final int LOGINS = 50;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void loginStorm() {
+        authService.registerUser(new RegisterUserRequest("storm-user", "password", "storm@example.com", "Storm", "User", "1234567890", "Storm Address", UserRole.Customer));
+        LoginUserRequest request = new LoginUserRequest("storm-user", "password");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        run("before (authenticate + 2 reloads)", statistics, () -> {
+            User authenticated = userRepository.findByUsername(request.username()).orElseThrow();
+            if (!passwordEncoder.matches(request.password(), authenticated.getPassword())) {
+                throw new BadCredentialsException("Invalid credentials");
+            }
+            userRepository.findByUsername(request.username()).orElseThrow();
+            jwtService.generateToken(userRepository.findByUsername(request.username()).orElseThrow());
+        });
+        run("after (single lookup)", statistics, () -> authService.loginUser(request));
+    }
+
+    private static void run(String name, Statistics statistics, Runnable login) {
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < LOGINS; i++) {
+            login.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-36s %5.2f statements/login %8.2f ms/login%n",
+                name, (double) statistics.getPrepareStatementCount() / LOGINS, elapsed / 1_000_000.0 / LOGINS);
+    }
+}
@@ -0,0 +1,112 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.ProductExportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports the catalog to a discarding stream after growing it from 50,000 to 200,000 products and
+ * reports the wall time and how much live heap the export holds. The live heap is measured after a
+ * full collection every few megabytes of output, so it counts what the export retains rather than
+ * garbage not yet collected. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ProductExportBenchmark {
+
+    // Out of the way of the ids the sequences hand out
+    private static final long FIRST_ID = 10_000_000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportHeapDoesNotGrowWithTheCatalog() throws IOException {
+        long categoryId = productCategoryRepository.save(new ProductCategory("Export Bench Category")).getId();
+        User seller = userRepository.save(new User("export-bench", "encodedPassword", "export-bench@example.com",
+                "Export", "Bench", "1234567890", "Bench Address", UserRole.Seller));
+
+        insert(0, 50_000, categoryId, seller.getUserId());
+        productExportService.exportProducts(null, OutputStream.nullOutputStream());
+        export("50,000 products");
+
+        insert(50_000, 200_000, categoryId, seller.getUserId());
+        export("200,000 products");
+    }
+
+    private void export(String label) throws IOException {
+        long start = System.nanoTime();
+        long written = productExportService.exportProducts(null, OutputStream.nullOutputStream());
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.gc();
+        long baseline = MEMORY.getHeapMemoryUsage().getUsed();
+        LiveHeapSamplingOutputStream output = new LiveHeapSamplingOutputStream();
+        productExportService.exportProducts(null, output);
+        System.out.printf("%-18s %d rows, %d MB in %d ms; live heap held by the export: up to %d MB over %d samples%n",
+                label, written, output.bytes >> 20, elapsedMillis, Math.max(0, output.maxLive - baseline) >> 20, output.samples);
+    }
+
+    private void insert(int from, int to, long categoryId, long sellerId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int batchStart = from; batchStart < to; batchStart += 5_000) {
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = batchStart; i < Math.min(batchStart + 5_000, to); i++) {
+                rows.add(new Object[]{FIRST_ID + i, "Export Product " + i, "Description of export product " + i,
+                        BigDecimal.valueOf(i % 10_000, 2), categoryId, sellerId, now, now});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO products (id, name, description, price, category_id, seller_id, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    // Collects garbage and samples the heap in use every 4 MB written
+    private static final class LiveHeapSamplingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long maxLive;
+        private int samples;
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            if ((bytes + length) >> 22 != bytes >> 22) {
+                System.gc();
+                maxLive = Math.max(maxLive, MEMORY.getHeapMemoryUsage().getUsed());
+                samples++;
+            }
+            bytes += length;
+        }
+    }
+}
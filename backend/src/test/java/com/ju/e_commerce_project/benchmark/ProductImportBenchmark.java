@@ -0,0 +1,138 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.dto.response.ProductImportResponse;
+import com.ju.e_commerce_project.importer.ProductImportFormat;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.ProductCategoryService;
+import com.ju.e_commerce_project.service.ProductImportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports a generated 100,000-row CSV file into the in-memory database and reports the wall time
+ * and the peak heap in use while it runs. The file is generated as it is read, so the heap only
+ * holds what the import itself keeps. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ProductImportBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void importHundredThousandRows() throws InterruptedException {
+        long[] categoryIds = new long[20];
+        for (int i = 0; i < categoryIds.length; i++) {
+            categoryIds[i] = productCategoryRepository.save(new ProductCategory("Bench Category " + i)).getId();
+        }
+        productCategoryService.reload();
+        User seller = userRepository.save(new User("import-bench", "encodedPassword", "import-bench@example.com",
+                "Import", "Bench", "1234567890", "Bench Address", UserRole.Seller));
+
+        // Warms up the JIT and the connection pool on a small file first
+        productImportService.importProducts(seller.getUsername(), ProductImportFormat.CSV, new GeneratedCsv(2_000, categoryIds), StandardCharsets.UTF_8);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+
+        long start = System.nanoTime();
+        ProductImportResponse response = productImportService.importProducts(
+                seller.getUsername(), ProductImportFormat.CSV, new GeneratedCsv(ROWS, categoryIds), StandardCharsets.UTF_8);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        sampler.interrupt();
+        sampler.join();
+
+        System.gc();
+        long retained = memory.getHeapMemoryUsage().getUsed() - baseline;
+        System.out.printf("imported %d rows (%d failed) in %d ms, %.0f rows/s%n",
+                response.imported(), response.failed(), elapsedMillis, response.imported() * 1000.0 / elapsedMillis);
+        System.out.printf("heap: baseline %d MB, peak %d MB, retained after import %d MB (search index and suggester)%n",
+                baseline >> 20, peak.get() >> 20, retained >> 20);
+    }
+
+    // One row in a hundred has a price that does not parse
+    private static final class GeneratedCsv extends InputStream {
+
+        private final int rows;
+        private final long[] categoryIds;
+        private byte[] line = "name,description,price,categoryId\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+        private int row;
+
+        GeneratedCsv(int rows, long[] categoryIds) {
+            this.rows = rows;
+            this.categoryIds = categoryIds;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            return line[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == line.length && !nextLine()) {
+                return -1;
+            }
+            int count = Math.min(length, line.length - position);
+            System.arraycopy(line, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        private boolean nextLine() {
+            if (row == rows) {
+                return false;
+            }
+            row++;
+            String price = row % 100 == 0 ? "n/a" : (row % 50_000) / 100 + "." + row % 100;
+            line = ("Imported Product " + row + ",\"Bulk item " + row + ", with a quoted, comma-separated description\","
+                    + price + "," + categoryIds[row % categoryIds.length] + "\n").getBytes(StandardCharsets.UTF_8);
+            position = 0;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.search.ProductDocument;
+import com.ju.e_commerce_project.search.ProductQuery;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import com.ju.e_commerce_project.search.ProductSort;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Indexes a million synthetic products whose words follow a Zipf-like distribution and reports
+ * latency percentiles for text queries and for faceted browsing with and without filters.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int VOCABULARY = 50_000;
+    private static final int WARMUP_QUERIES = 500;
+    private static final int QUERIES = 2_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ra", "su", "to", "vi", "ze", "po", "da", "fu", "gi", "he", "ju", "bo"};
+
+    private final Random random = new Random(42);
+    private final String[] words = vocabulary();
+
+    @Test
+    void queryLatencyOverAMillionProducts() {
+        ProductSearchIndex index = new ProductSearchIndex(null);
+        long start = System.nanoTime();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            index.index(new ProductDocument(id, text(3), text(12), BigDecimal.valueOf(random.nextInt(100_000), 2), (long) random.nextInt(50), "Category", "seller" + random.nextInt(5_000)));
+        }
+        System.out.printf("indexed %d products in %d ms%n", index.size(), (System.nanoTime() - start) / 1_000_000);
+
+        run("common word", () -> index.search(words[random.nextInt(10)] + " ", 20));
+        run("rare word", () -> index.search(words[1000 + random.nextInt(VOCABULARY - 1000)] + " ", 20));
+        run("three words", () -> index.search(text(3) + " ", 20));
+        run("two words, prefix", () -> index.search(text(1) + " " + words[random.nextInt(VOCABULARY)].substring(0, 3), 20));
+
+        run("facets, no filter", () -> index.browse(new ProductQuery(null, null, null, null, null, null, 0, 20)));
+        run("facets, category", () -> index.browse(new ProductQuery(
+                null, Set.of((long) random.nextInt(50)), null, null, null, ProductSort.PRICE_ASC, 0, 20)));
+        run("facets, cat+price+seller", () -> index.browse(new ProductQuery(
+                null, Set.of((long) random.nextInt(50)), BigDecimal.TEN, BigDecimal.valueOf(500), Set.of("seller" + random.nextInt(5_000)), null, 0, 20)));
+        run("facets, rare word+cat", () -> index.browse(new ProductQuery(
+                words[1000 + random.nextInt(VOCABULARY - 1000)] + " ", Set.of((long) random.nextInt(50)), null, null, null, null, 0, 20)));
+    }
+
+    private void run(String name, Runnable query) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.run();
+        }
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            query.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-20s p50 %7.3f ms   p99 %7.3f ms   max %7.3f ms%n", name,
+                latencies[QUERIES / 2] / 1e6, latencies[QUERIES * 99 / 100] / 1e6, latencies[QUERIES - 1] / 1e6);
+    }
+
+    // Word i is drawn with probability roughly proportional to 1 / (i + 1)
+    private String text(int wordCount) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            int rank = (int) Math.floor(Math.pow(VOCABULARY + 1, random.nextDouble())) - 1;
+            text.append(words[Math.min(rank, VOCABULARY - 1)]).append(' ');
+        }
+        return text.toString().trim();
+    }
+
+    private String[] vocabulary() {
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            int n = i;
+            do {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+                n /= SYLLABLES.length;
+            } while (n > 0);
+            vocabulary[i] = word.append(SYLLABLES[i % 7]).toString();
+        }
+        return vocabulary;
+    }
+}
@@ -0,0 +1,117 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.repository.OrderItemRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.search.ProductPopularity;
+import com.ju.e_commerce_project.search.ProductSuggester;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds the suggestion trie for a million products and reports lookup latency for prefixes of
+ * one to six characters, plus the cost of an incremental update. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class ProductSuggesterBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int VOCABULARY = 20_000;
+    private static final int WARMUP_QUERIES = 20_000;
+    private static final int QUERIES = 100_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ra", "su", "to", "vi", "ze", "po", "da", "fu", "gi", "he", "ju", "bo"};
+
+    private final Random random = new Random(42);
+    private final String[] words = vocabulary();
+
+    @Test
+    void suggestOverAMillionProducts() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        OrderItemRepository orderItemRepository = mock(OrderItemRepository.class);
+        List<ProductPopularity> sales = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id += 7) {
+            sales.add(new ProductPopularity(id, (long) random.nextInt(1_000)));
+        }
+        when(orderItemRepository.findPopularity()).thenReturn(sales);
+        when(productRepository.findSuggestions(anyLong(), any(Limit.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.<Limit>getArgument(1).max();
+            List<ProductSuggestion> batch = new ArrayList<>();
+            for (long id = afterId + 1; id <= PRODUCTS && batch.size() < limit; id++) {
+                batch.add(new ProductSuggestion(id, name(id)));
+            }
+            return batch;
+        });
+
+        ProductSuggester suggester = new ProductSuggester(productRepository, orderItemRepository);
+        System.gc();
+        long heapBefore = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        long start = System.nanoTime();
+        suggester.rebuild();
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        System.out.printf("built trie for %d products in %d ms, ~%d MB of heap%n", PRODUCTS, buildMillis, (heapAfter - heapBefore) >> 20);
+
+        for (int length = 1; length <= 6; length++) {
+            int prefixLength = length;
+            run("prefix of " + length, () -> suggester.suggest(words[random.nextInt(VOCABULARY)].substring(0, Math.min(prefixLength, 4)), 10));
+        }
+        run("two words", () -> suggester.suggest(words[random.nextInt(VOCABULARY)] + " " + words[random.nextInt(VOCABULARY)].substring(0, 2), 10));
+        run("update (sale)", () -> {
+            suggester.recordSales(Map.of(1L + random.nextInt(PRODUCTS), 1));
+            return List.of();
+        });
+    }
+
+    private void run(String name, Query query) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.run();
+        }
+        long[] latencies = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long start = System.nanoTime();
+            query.run();
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-16s p50 %7.2f us   p99 %7.2f us   max %8.2f us%n", name,
+                latencies[QUERIES / 2] / 1e3, latencies[QUERIES * 99 / 100] / 1e3, latencies[QUERIES - 1] / 1e3);
+    }
+
+    private String name(long id) {
+        Random words = new Random(id);
+        return this.words[words.nextInt(VOCABULARY)] + " " + this.words[words.nextInt(VOCABULARY)] + " " + this.words[words.nextInt(VOCABULARY)];
+    }
+
+    private String[] vocabulary() {
+        String[] vocabulary = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            int n = i;
+            do {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+                n /= SYLLABLES.length;
+            } while (n > 0);
+            vocabulary[i] = word.append(SYLLABLES[i % 7]).toString();
+        }
+        return vocabulary;
+    }
+
+    @FunctionalInterface
+    private interface Query {
+        List<ProductSuggestion> run();
+    }
+}
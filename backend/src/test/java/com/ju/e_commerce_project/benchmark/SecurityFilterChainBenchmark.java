@@ -0,0 +1,70 @@
+package com.ju.e_commerce_project.benchmark;
+
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.JwtService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * Measures the time spent in the Spring Security filter chain per request, for an anonymous catalog
+ * read, an authenticated request and a request with a malformed token. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class SecurityFilterChainBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 10_000;
+    private static final int ITERATIONS = 20_000;
+
+    @Autowired
+    @Qualifier("springSecurityFilterChain")
+    private Filter springSecurityFilterChain;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Test
+    void filterChainOverheadPerRequest() throws Exception {
+        User user = userRepository.save(new User("chain-user", "encodedPassword", "chain@example.com", "Chain", "User", "1234567890", "Chain Address", UserRole.Customer));
+        String token = jwtService.generateToken(user);
+
+        run("anonymous GET /api/products/category/1", () -> new MockHttpServletRequest("GET", "/api/products/category/1"));
+        run("authenticated GET /api/cart", () -> withToken(new MockHttpServletRequest("GET", "/api/cart"), token));
+        run("malformed token GET /api/cart", () -> withToken(new MockHttpServletRequest("GET", "/api/cart"), "not-a-token"));
+    }
+
+    private static MockHttpServletRequest withToken(MockHttpServletRequest request, String token) {
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+
+    private void run(String name, RequestFactory requests) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            springSecurityFilterChain.doFilter(requests.create(), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            springSecurityFilterChain.doFilter(requests.create(), new MockHttpServletResponse(), new MockFilterChain());
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-42s %8.0f ns/request%n", name, (double) elapsed / ITERATIONS);
+    }
+
+    @FunctionalInterface
+    private interface RequestFactory {
+        MockHttpServletRequest create();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ju.e_commerce_project.cache;
+
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductListingCacheTest {
+
+    private final ProductListingCache productListingCache = new ProductListingCache(100, 60);
+    private final ProductPageResponse page = new ProductPageResponse(List.of(), null);
+
+    @Test
+    void put_PageLoadedBeforeAnInvalidation_IsNotCached() {
+        ProductListingCache.ListingKey key = new ProductListingCache.ListingKey(1L, 0L, 20, true);
+        long epoch = productListingCache.epoch();
+
+        productListingCache.invalidateCategories(List.of(2L));
+        productListingCache.put(key, page, epoch);
+
+        assertNull(productListingCache.get(key));
+    }
+
+    @Test
+    void invalidateCategories_OnlyEvictsTheGivenCategories() {
+        ProductListingCache.ListingKey first = new ProductListingCache.ListingKey(1L, 0L, 20, true);
+        ProductListingCache.ListingKey second = new ProductListingCache.ListingKey(2L, 0L, 20, false);
+        productListingCache.put(first, page, productListingCache.epoch());
+        productListingCache.put(second, page, productListingCache.epoch());
+
+        productListingCache.invalidateCategories(List.of(1L));
+
+        assertNull(productListingCache.get(first));
+        assertNotNull(productListingCache.get(second));
+    }
+}
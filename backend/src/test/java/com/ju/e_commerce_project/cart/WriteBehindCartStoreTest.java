@@ -0,0 +1,346 @@
+package com.ju.e_commerce_project.cart;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.CartOperation;
+import com.ju.e_commerce_project.dto.request.CartOperationType;
+import com.ju.e_commerce_project.dto.request.PlaceOrderRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartItemRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartRequest;
+import com.ju.e_commerce_project.dto.response.CartDeltaResponse;
+import com.ju.e_commerce_project.dto.response.CartItemResponse;
+import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.dto.response.OrderResponse;
+import com.ju.e_commerce_project.exception.ResourceNotFoundException;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.model.enums.PaymentMethod;
+import com.ju.e_commerce_project.repository.CartItemRepository;
+import com.ju.e_commerce_project.repository.CartRepository;
+import com.ju.e_commerce_project.repository.CartUpsertRepository;
+import com.ju.e_commerce_project.repository.IdAllocator;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.service.CartService;
+import com.ju.e_commerce_project.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The timer is pushed out of the way; every test flushes when it needs to. One connection is
+// enough for a checkout, so the pool holds only one.
+@SpringBootTest(properties = {
+        "cart.store=write-behind",
+        "cart.write-behind.log-dir=build/tmp/write-behind-cart-log",
+        "cart.write-behind.flush-interval-ms=3600000",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=2000"
+})
+class WriteBehindCartStoreTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private WriteBehindCartStore writeBehindCartStore;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private CartUpsertRepository cartUpsertRepository;
+
+    @Autowired
+    private IdAllocator idAllocator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cart.write-behind.log-dir}")
+    private Path logDirectory;
+
+    private final List<Product> products = new ArrayList<>();
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Memory Category " + System.nanoTime()));
+        User seller = saveUser("memory-seller-", UserRole.Seller);
+        for (int i = 0; i < 3; i++) {
+            products.add(productRepository.save(new Product("Memory Product " + i, "Description " + i, new BigDecimal("5.00"), category, seller)));
+        }
+        customer = saveUser("memory-customer-", UserRole.Customer);
+    }
+
+    @Test
+    void changes_AreServedFromMemoryAndWrittenOnFlush() {
+        CartResponse added = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        Long firstLineId = added.items().get(0).cartItemId();
+        CartDeltaResponse delta = cartService.addItemToCartDelta(customer.getUsername(), new AddItemToCartRequest(product(1), 1));
+        cartService.updateCartItem(customer.getUsername(), firstLineId, new UpdateCartItemRequest(4));
+        CartResponse cart = cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                new CartOperation(CartOperationType.REMOVE, null, delta.item().cartItemId(), null),
+                new CartOperation(CartOperationType.ADD, product(2), null, 3)
+        )));
+
+        assertEquals(added.version() + 1, delta.version());
+        assertEquals(0, new BigDecimal("15.00").compareTo(delta.totalPrice()));
+        assertEquals(added.version() + 3, cart.version());
+        assertEquals(Map.of(product(0), 4, product(2), 3), quantities(cart));
+        assertEquals(0, new BigDecimal("35.00").compareTo(cart.totalPrice()));
+        assertEquals("Memory Product 2", cart.items().get(1).productName());
+        assertEquals(0, storedLineCount(cart.cartId()));
+
+        writeBehindCartStore.flush();
+
+        assertEquals(Map.of(product(0), 4, product(2), 3), storedQuantities(cart.cartId()));
+        assertEquals(cart.version(), cartRepository.findVersionById(cart.cartId()));
+        assertEquals(firstLineId, jdbcTemplate.queryForObject("SELECT id FROM cart_items WHERE cart_id = ? AND product_id = ?",
+                Long.class, cart.cartId(), product(0)));
+        assertEquals(cart, cartService.getCart(customer.getUsername()));
+    }
+
+    @Test
+    void failedChange_LeavesTheCartAsItWas() {
+        CartResponse before = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 1));
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                new CartOperation(CartOperationType.ADD, product(1), null, 1),
+                new CartOperation(CartOperationType.UPDATE, null, Long.MAX_VALUE, 2)
+        ))));
+        assertThrows(ResourceNotFoundException.class, () -> cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(Long.MAX_VALUE, 1)));
+
+        assertEquals(before, cartService.getCart(customer.getUsername()));
+    }
+
+    @Test
+    void recover_WritesWhatTheLogHoldsAndTheDatabaseDoesNot(@TempDir Path crashedLogDirectory) throws Exception {
+        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(1), 5));
+        cart = cartService.removeCartItem(customer.getUsername(), cart.items().get(0).cartItemId());
+        // What a crash right now would leave behind
+        copyLog(logDirectory, crashedLogDirectory);
+        assertEquals(0, storedLineCount(cart.cartId()));
+
+        restart(crashedLogDirectory);
+
+        assertEquals(Map.of(product(1), 5), storedQuantities(cart.cartId()));
+        assertEquals(cart.version(), cartRepository.findVersionById(cart.cartId()));
+        assertEquals("", logContents(crashedLogDirectory));
+    }
+
+    @Test
+    void recover_DropsLinesWhoseProductIsGoneAndRecoversTheOtherCarts(@TempDir Path crashedLogDirectory) throws Exception {
+        User other = saveUser("memory-customer-", UserRole.Customer);
+        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(1), 5));
+        CartResponse otherCart = cartService.addItemToCart(other.getUsername(), new AddItemToCartRequest(product(2), 1));
+        copyLog(logDirectory, crashedLogDirectory);
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product(1));
+
+        restart(crashedLogDirectory);
+
+        assertEquals(Map.of(product(0), 2), storedQuantities(cart.cartId()));
+        assertEquals(Map.of(product(2), 1), storedQuantities(otherCart.cartId()));
+        assertEquals("", logContents(crashedLogDirectory));
+    }
+
+    @Test
+    void flush_LineWhoseProductIsGone_IsDroppedAndTheOtherCartsAreWritten() {
+        User other = saveUser("memory-customer-", UserRole.Customer);
+        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(1), 5));
+        CartResponse otherCart = cartService.addItemToCart(other.getUsername(), new AddItemToCartRequest(product(2), 1));
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product(1));
+
+        writeBehindCartStore.flush();
+
+        assertEquals(Map.of(product(0), 2), storedQuantities(cart.cartId()));
+        assertEquals(Map.of(product(2), 1), storedQuantities(otherCart.cartId()));
+        CartResponse dropped = cartService.getCart(customer.getUsername());
+        assertEquals(Map.of(product(0), 2), quantities(dropped));
+        assertEquals(cart.version() + 1, dropped.version());
+        writeBehindCartStore.flush();
+        assertEquals(dropped.version(), cartRepository.findVersionById(cart.cartId()));
+    }
+
+    @Test
+    void flush_CartThatCannotBeWritten_StaysInTheLogWithoutHoldingBackTheOthers() throws Exception {
+        User other = saveUser("memory-customer-", UserRole.Customer);
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        CartResponse otherCart = cartService.addItemToCart(other.getUsername(), new AddItemToCartRequest(product(1), 1));
+        jdbcTemplate.update("DELETE FROM carts WHERE id = ?", cart.cartId());
+
+        writeBehindCartStore.flush();
+
+        assertEquals(Map.of(product(1), 1), storedQuantities(otherCart.cartId()));
+        assertEquals(0, storedLineCount(cart.cartId()));
+        // Only the current segment is left, and it holds the cart's changes again
+        assertTrue(logContents(logDirectory).contains("\"cartId\":" + cart.cartId() + ","));
+
+        jdbcTemplate.update("INSERT INTO carts (id, user_id, version, created_at, updated_at) VALUES (?, ?, 0, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                cart.cartId(), customer.getUserId());
+        writeBehindCartStore.flush();
+
+        assertEquals(Map.of(product(0), 2), storedQuantities(cart.cartId()));
+        assertEquals(cart.version(), cartRepository.findVersionById(cart.cartId()));
+    }
+
+    @Test
+    void placeOrder_WritesTheCartFirstAndEmptiesIt() {
+        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 2));
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(1), 1));
+
+        OrderResponse order = orderService.placeOrder(customer.getUsername(),
+                new PlaceOrderRequest("1 Memory Street, Memory City", "1234567890", PaymentMethod.CASH_ON_DELIVERY, null));
+
+        assertEquals(2, order.items().size());
+        assertEquals(0, new BigDecimal("15.00").compareTo(order.totalAmount()));
+        CartResponse emptied = cartService.getCart(customer.getUsername());
+        assertEquals(0, emptied.items().size());
+        assertEquals(cart.version() + 1, emptied.version());
+        assertEquals(0, storedLineCount(cart.cartId()));
+    }
+
+    @Test
+    void flush_TimedFlushDuringACheckoutWrite_KeepsTheCartInTheLogUntilTheWriteCommits(
+            @TempDir Path storeLogDirectory, @TempDir Path crashedLogDirectory) throws Exception {
+        Long cartId = cartService.getCart(customer.getUsername()).cartId();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch crash = new CountDownLatch(1);
+        // Holds the checkout's write open until the test crashes it
+        CartUpsertRepository stalling = new CartUpsertRepository(jdbcTemplate, idAllocator) {
+            @Override
+            public void setVersions(Map<Long, Long> versionsByCart) {
+                if (crash.getCount() > 0) {
+                    writing.countDown();
+                    try {
+                        crash.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("Crashed before the checkout's write committed");
+                }
+                super.setVersions(versionsByCart);
+            }
+        };
+        WriteBehindCartStore store = store(stalling, storeLogDirectory);
+        store.update(customer.getUsername(), () -> cartRepository.findById(cartId).orElseThrow(), 1, edit -> edit.add(product(0), 2));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> checkout = executor.submit(() -> store.flush(customer.getUsername()));
+            writing.await();
+            store.flush();
+            // What a crash right now would leave behind
+            copyLog(storeLogDirectory, crashedLogDirectory);
+            crash.countDown();
+            assertThrows(ExecutionException.class, checkout::get);
+        } finally {
+            executor.shutdown();
+        }
+
+        restart(crashedLogDirectory);
+
+        assertEquals(Map.of(product(0), 2), storedQuantities(cartId));
+        store.close();
+    }
+
+    private void copyLog(Path directory, Path crashedLogDirectory) throws Exception {
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory)) {
+            for (Path segment : segments) {
+                Files.copy(segment, crashedLogDirectory.resolve(segment.getFileName()));
+            }
+        }
+    }
+
+    private void restart(Path crashedLogDirectory) throws Exception {
+        WriteBehindCartStore restarted = store(cartUpsertRepository, crashedLogDirectory);
+        restarted.recover();
+        restarted.close();
+    }
+
+    private WriteBehindCartStore store(CartUpsertRepository upsertRepository, Path directory) {
+        return new WriteBehindCartStore(cartRepository, cartItemRepository, upsertRepository, idAllocator,
+                productRepository, transactionManager, objectMapper, 4, directory.toString(), false, 600000);
+    }
+
+    private String logContents(Path directory) throws Exception {
+        StringBuilder contents = new StringBuilder();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory)) {
+            for (Path segment : segments) {
+                contents.append(Files.readString(segment));
+            }
+        }
+        return contents.toString();
+    }
+
+    private Map<Long, Integer> quantities(CartResponse cart) {
+        return cart.items().stream().collect(Collectors.toMap(CartItemResponse::productId, CartItemResponse::quantity));
+    }
+
+    private Map<Long, Integer> storedQuantities(Long cartId) {
+        return jdbcTemplate.queryForList("SELECT product_id, quantity FROM cart_items WHERE cart_id = ?", cartId).stream()
+                .collect(Collectors.toMap(row -> ((Number) row.get("product_id")).longValue(), row -> ((Number) row.get("quantity")).intValue()));
+    }
+
+    private int storedLineCount(Long cartId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items WHERE cart_id = ?", Integer.class, cartId);
+    }
+
+    private Long product(int index) {
+        return products.get(index).getId();
+    }
+
+    private User saveUser(String prefix, UserRole role) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Memory", "User", "1234567890", "Memory Address", role));
+    }
+}
@@ -3,6 +3,7 @@ package com.ju.e_commerce_project.controller;
 import com.ju.e_commerce_project.dto.response.LoginUserResponse;
 import com.ju.e_commerce_project.dto.response.RegisterUserResponse;
 import com.ju.e_commerce_project.dto.request.LoginUserRequest;
+import com.ju.e_commerce_project.dto.request.RefreshTokenRequest;
 import com.ju.e_commerce_project.dto.request.RegisterUserRequest;
 import com.ju.e_commerce_project.model.UserRole;
 import com.ju.e_commerce_project.service.AuthService;
@@ -31,7 +32,7 @@ class AuthControllerTest {
     @Test
     void registerUser_ValidRequest_ReturnsRegisterUserResponse() {
         RegisterUserRequest request = new RegisterUserRequest("testuser", "password", "test@example.com", "Test", "User", "1234567890", "Test Address", null);
-        RegisterUserResponse expectedResponse = new RegisterUserResponse("testuser", "mockedToken");
+        RegisterUserResponse expectedResponse = new RegisterUserResponse("testuser", "mockedToken", "mockedRefreshToken");
         when(authService.registerUser(any(RegisterUserRequest.class))).thenReturn(expectedResponse);
 
         ResponseEntity<RegisterUserResponse> response = authController.registerUser(request);
@@ -46,7 +47,7 @@ class AuthControllerTest {
     @Test
     void loginUser_ValidRequest_ReturnsLoginUserResponse() {
         LoginUserRequest request = new LoginUserRequest("testuser", "password");
-        LoginUserResponse expectedResponse = new LoginUserResponse("testuser", "mockedToken", UserRole.Customer);
+        LoginUserResponse expectedResponse = new LoginUserResponse("testuser", "mockedToken", UserRole.Customer, "mockedRefreshToken");
         when(authService.loginUser(any(LoginUserRequest.class))).thenReturn(expectedResponse);
 
         ResponseEntity<LoginUserResponse> response = authController.loginUser(request);
@@ -57,4 +58,17 @@ class AuthControllerTest {
         assertEquals(expectedResponse.username(), response.getBody().username());
         assertEquals(expectedResponse.accessToken(), response.getBody().accessToken());
     }
+
+    @Test
+    void refreshAccessToken_ValidRequest_ReturnsLoginUserResponse() {
+        RefreshTokenRequest request = new RefreshTokenRequest("refreshToken");
+        LoginUserResponse expectedResponse = new LoginUserResponse("testuser", "newToken", UserRole.Customer, "newRefreshToken");
+        when(authService.refreshAccessToken(any(RefreshTokenRequest.class))).thenReturn(expectedResponse);
+
+        ResponseEntity<LoginUserResponse> response = authController.refreshAccessToken(request);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(expectedResponse, response.getBody());
+    }
 }
\ No newline at end of file
@@ -1,30 +1,44 @@
 package com.ju.e_commerce_project.controller;
 
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
 import com.ju.e_commerce_project.dto.response.ProductResponse;
 import com.ju.e_commerce_project.dto.request.AddProductRequest;
 import com.ju.e_commerce_project.model.Product;
 import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.repository.ResourceVersion;
 import com.ju.e_commerce_project.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ProductControllerTest {
 
+    private static final ResourceVersion VERSION = new ResourceVersion(new Date(1_700_000_000_000L), 2L);
+
     @Mock
     private ProductService productService;
 
@@ -51,28 +65,67 @@ class ProductControllerTest {
     }
 
     @Test
-    void getProductsByCategory_ExistingCategory_ReturnsListOfProductResponses() {
+    void getProductsByCategory_ExistingCategory_ReturnsPageOfProductResponses() {
         Long categoryId = 1L;
-        ProductCategory category = new ProductCategory("Test Category");
-        category.setId(categoryId);
-        List<Product> products = new ArrayList<>();
-        Product product1 = new Product("Product 1", "Description 1", new BigDecimal("10.00"), category, null);
-        product1.setId(1L);
-        Product product2 = new Product("Product 2", "Description 2", new BigDecimal("20.00"), category, null);
-        product2.setId(2L);
-        products.add(product1);
-        products.add(product2);
+        ProductPageResponse page = new ProductPageResponse(List.of(
+                new ProductResponse(1L, "Product 1", "Description 1", new BigDecimal("10.00"), "Test Category"),
+                new ProductResponse(2L, "Product 2", "Description 2", new BigDecimal("20.00"), "Test Category")
+        ), "next");
+        when(productService.getCategoryListingVersion(categoryId)).thenReturn(VERSION);
+        when(productService.getProductsByCategory(categoryId, null, null, true)).thenReturn(page);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<ProductPageResponse> response = productController.getProductsByCategory(categoryId, null, null, null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/products/category/1"), servletResponse));
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(page, response.getBody());
+        assertEquals(VERSION.eTag(null, null, null), servletResponse.getHeader(HttpHeaders.ETAG));
+    }
 
-        when(productService.getProductsByCategory(categoryId)).thenReturn(products);
+    @Test
+    void getProductsByCategory_MatchingETag_ReturnsNotModifiedWithoutLoading() {
+        when(productService.getCategoryListingVersion(1L)).thenReturn(VERSION);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/category/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, VERSION.eTag(null, null, null));
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
 
-        ResponseEntity<List<ProductResponse>> response = productController.getProductsByCategory(categoryId);
+        ResponseEntity<ProductPageResponse> response = productController.getProductsByCategory(1L, null, null, null,
+                new ServletWebRequest(request, servletResponse));
+
+        assertNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), servletResponse.getStatus());
+        verify(productService, never()).getProductsByCategory(any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void getProductsByCategory_IfModifiedSinceOnly_IsIgnored() {
+        when(productService.getCategoryListingVersion(1L)).thenReturn(VERSION);
+        when(productService.getProductsByCategory(1L, null, null, true)).thenReturn(new ProductPageResponse(List.of(), null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/category/1");
+        // The latest update time stays the same after a delete, so it cannot prove the listing unchanged
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, VERSION.lastModifiedMillis());
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<ProductPageResponse> response = productController.getProductsByCategory(1L, null, null, null,
+                new ServletWebRequest(request, servletResponse));
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertNotNull(response.getBody());
-        assertEquals(2, response.getBody().size());
-        assertProduct(product1, response.getBody().get(0));
-        assertProduct(product2, response.getBody().get(1));
+        assertNull(servletResponse.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void getProductsByCategory_FieldsWithoutDescription_RequestsSummaries() {
+        ProductPageResponse page = new ProductPageResponse(List.of(), null);
+        when(productService.getCategoryListingVersion(1L)).thenReturn(VERSION);
+        when(productService.getProductsByCategory(1L, null, null, false)).thenReturn(page);
+
+        ResponseEntity<ProductPageResponse> response = productController.getProductsByCategory(1L, null, null, Set.of("id", "name", "price"),
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/products/category/1")));
+
+        assertSame(page, response.getBody());
     }
 
     private static void assertProduct(Product product, ProductResponse response) {
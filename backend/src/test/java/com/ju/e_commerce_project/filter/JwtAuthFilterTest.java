@@ -0,0 +1,137 @@
+package com.ju.e_commerce_project.filter;
+
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.service.JwtService;
+import com.ju.e_commerce_project.service.TokenRevocationService;
+import com.ju.e_commerce_project.service.TokenVersionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+
+    private static final String SECRET_KEY = "5367566859703373367639792F423F452848284D6251655468576D5A71347437";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JwtService jwtService;
+    private JwtAuthFilter jwtAuthFilter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET_KEY, 100, 15);
+        jwtAuthFilter = new JwtAuthFilter(userDetailsService, jwtService, tokenVersionService, tokenRevocationService, true);
+        user = new User("testuser", "encodedPassword", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Seller);
+        user.setUserId(7L);
+        user.setTokenVersion(3);
+        SecurityContextHolder.clearContext();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void claimsAuthentication_CurrentTokenVersion_AuthenticatesWithoutUserLookup() throws Exception {
+        when(tokenVersionService.isCurrent(7L, 3)).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(requestWithToken(jwtService.generateToken(user)), response, chain);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(chain.getRequest());
+        assertNotNull(authentication);
+        assertEquals("testuser", authentication.getName());
+        assertEquals("ROLE_Seller", authentication.getAuthorities().iterator().next().getAuthority());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void claimsAuthentication_StaleTokenVersion_ReturnsForbidden() throws Exception {
+        when(tokenVersionService.isCurrent(7L, 3)).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(requestWithToken(jwtService.generateToken(user)), response, chain);
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        assertNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void revokedToken_ReturnsForbiddenWithoutAuthenticating() throws Exception {
+        String token = jwtService.generateToken(user);
+        when(tokenRevocationService.isRevoked(jwtService.extractAllClaims(token).getId())).thenReturn(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(requestWithToken(token), response, chain);
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        assertNull(chain.getRequest());
+        verify(tokenVersionService, never()).isCurrent(7L, 3);
+    }
+
+    @Test
+    void noAuthorizationHeader_PassesThroughWithoutTokenWork() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(new MockHttpServletRequest("GET", "/api/products/category/1"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(tokenRevocationService, tokenVersionService, userDetailsService);
+    }
+
+    @Test
+    void malformedToken_WritesJsonError() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        jwtAuthFilter.doFilter(requestWithToken("not-a-token"), response, chain);
+
+        assertEquals(HttpStatus.FORBIDDEN.value(), response.getStatus());
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getContentType());
+        assertTrue(response.getContentAsString().contains("\"error\":\"Invalid JWT token\""));
+        assertNull(chain.getRequest());
+    }
+
+    private static MockHttpServletRequest requestWithToken(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+}
@@ -0,0 +1,241 @@
+package com.ju.e_commerce_project.search;
+
+import com.ju.e_commerce_project.dto.response.FacetCount;
+import com.ju.e_commerce_project.dto.response.ProductBrowseResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSearchResponse;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(productRepository);
+    }
+
+    @Test
+    void tokenize_SplitsOnPunctuationAndLowerCases() {
+        assertEquals(List.of("usb", "c", "charger", "65w"), Tokenizer.tokenize("USB-C Charger, 65W!"));
+        assertTrue(Tokenizer.tokenize("  ...  ").isEmpty());
+    }
+
+    @Test
+    void search_RanksNameMatchesAboveDescriptionMatches() {
+        index.index(document(1L, "Phone case", "Fits every laptop bag"));
+        index.index(document(2L, "Laptop stand", "Aluminium"));
+        index.index(document(3L, "Desk lamp", "Warm light"));
+
+        ProductSearchResponse response = index.search("laptop ", 10);
+
+        assertEquals(List.of(2L, 1L), ids(response));
+        assertEquals(2, response.total());
+        assertNull(response.items().get(0).description());
+    }
+
+    @Test
+    void search_MoreMatchingTermsRankHigher() {
+        index.index(document(1L, "Wireless mouse", null));
+        index.index(document(2L, "Wireless gaming mouse", null));
+        index.index(document(3L, "Gaming chair", null));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(index.search("wireless gaming mouse ", 10)));
+    }
+
+    @Test
+    void search_LastWordIsMatchedAsPrefix() {
+        index.index(document(1L, "Headphones", "Over-ear"));
+        index.index(document(2L, "Headset", "With microphone"));
+        index.index(document(3L, "Speaker", null));
+
+        assertEquals(2, index.search("head", 10).total());
+        assertEquals(0, index.search("head ", 10).total());
+        assertEquals(List.of(2L), ids(index.search("micro", 10)));
+    }
+
+    @Test
+    void search_LimitKeepsTheBestHits() {
+        for (long id = 1; id <= 50; id++) {
+            index.index(document(id, "Notebook " + id, id == 42 ? "notebook notebook notebook" : "paper"));
+        }
+
+        ProductSearchResponse response = index.search("notebook ", 3);
+
+        assertEquals(3, response.items().size());
+        assertEquals(50, response.total());
+        assertEquals(42L, response.items().get(0).id());
+    }
+
+    @Test
+    void index_UpdatedProductIsFoundOnlyByItsNewText() {
+        index.index(document(1L, "Red kettle", null));
+        index.index(document(1L, "Blue kettle", null));
+
+        assertEquals(0, index.search("red ", 10).total());
+        assertEquals(List.of(1L), ids(index.search("blue ", 10)));
+        assertEquals("Blue kettle", index.search("kettle ", 10).items().get(0).name());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void remove_ManyProducts_CompactsAndKeepsTheRestSearchable() {
+        for (long id = 1; id <= 100; id++) {
+            index.index(document(id, "Chair " + id, id % 2 == 0 ? "oak" : "pine"));
+        }
+        for (long id = 1; id <= 80; id++) {
+            index.remove(id);
+        }
+
+        assertEquals(20, index.size());
+        assertEquals(20, index.search("chair ", 100).total());
+        assertEquals(10, index.search("oak ", 100).total());
+        assertEquals(List.of(90L), ids(index.search("90 ", 10)));
+    }
+
+    @Test
+    void rebuild_LoadsAllProductsInBatches() {
+        List<ProductDocument> firstBatch = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            firstBatch.add(document(id, "Book " + id, null));
+        }
+        when(productRepository.findDocuments(0L, Limit.of(5000))).thenReturn(firstBatch);
+        when(productRepository.findDocuments(eq(5000L), any())).thenReturn(List.of(document(5001L, "Pen", null)));
+        index.index(document(9999L, "Stale", null));
+
+        index.rebuild();
+
+        assertEquals(5001, index.size());
+        assertEquals(0, index.search("stale ", 10).total());
+        assertEquals(List.of(5001L), ids(index.search("pen ", 10)));
+    }
+
+    @Test
+    void browse_CombinedFilters_CountEachFacetWithoutItsOwnFilter() {
+        index.index(product(1L, "Phone", "5.00", 1L, "alice"));
+        index.index(product(2L, "Tablet", "30.00", 1L, "bob"));
+        index.index(product(3L, "Laptop", "700.00", 1L, "alice"));
+        index.index(product(4L, "Novel", "12.00", 2L, "alice"));
+        index.index(product(5L, "Atlas", "40.00", 2L, "bob"));
+
+        ProductBrowseResponse response = index.browse(new ProductQuery(
+                null, Set.of(1L), null, new BigDecimal("50.00"), Set.of("alice"), null, 0, 10));
+
+        assertEquals(List.of(1L), ids(response.items()));
+        assertEquals(1, response.total());
+        // Alice's products up to 50 in either category
+        assertEquals(List.of(new FacetCount("1", "Electronics", 1), new FacetCount("2", "Books", 1)), response.facets().categories());
+        // Category 1 up to 50 by any seller
+        assertEquals(List.of(new FacetCount("alice", null, 1), new FacetCount("bob", null, 1)), response.facets().sellers());
+        // Alice's category 1 products at any price
+        assertEquals(1, priceCount(response, "0-25"));
+        assertEquals(1, priceCount(response, "500-1000"));
+    }
+
+    @Test
+    void browse_WithoutFilters_UsesLiveTotalsThatFollowUpdates() {
+        index.index(product(1L, "Phone", "5.00", 1L, "alice"));
+        index.index(product(2L, "Novel", "12.00", 2L, "alice"));
+
+        index.index(product(2L, "Novel", "12.00", 1L, "bob"));
+        index.remove(1L);
+
+        ProductBrowseResponse response = index.browse(new ProductQuery(null, null, null, null, null, null, 0, 10));
+
+        assertEquals(List.of(2L), ids(response.items()));
+        assertEquals(List.of(new FacetCount("1", "Electronics", 1)), response.facets().categories());
+        assertEquals(List.of(new FacetCount("bob", null, 1)), response.facets().sellers());
+        assertEquals(1, priceCount(response, "0-25"));
+        assertEquals(0, priceCount(response, "25-50"));
+    }
+
+    @Test
+    void browse_SortsAndPages() {
+        index.index(product(1L, "A", "30.00", 1L, "alice"));
+        index.index(product(2L, "B", "10.00", 1L, "alice"));
+        index.index(product(3L, "C", "20.00", 1L, "alice"));
+
+        assertEquals(List.of(3L, 2L, 1L), ids(index.browse(query(null, 0, 10)).items()));
+        assertEquals(List.of(2L, 3L, 1L), ids(index.browse(query(ProductSort.PRICE_ASC, 0, 10)).items()));
+        assertEquals(List.of(3L, 2L), ids(index.browse(query(ProductSort.PRICE_DESC, 1, 2)).items()));
+    }
+
+    @Test
+    void browse_OffsetFarPastTheResults_ReturnsAnEmptyPage() {
+        index.index(product(1L, "A", "30.00", 1L, "alice"));
+        index.index(product(2L, "B", "10.00", 1L, "alice"));
+
+        ProductBrowseResponse response = index.browse(query(null, Integer.MAX_VALUE - 10, 10));
+
+        assertTrue(response.items().isEmpty());
+        assertEquals(2, response.total());
+    }
+
+    @Test
+    void browse_OutOfRangePriceFilters_SaturateInsteadOfWrapping() {
+        index.index(product(1L, "A", "30.00", 1L, "alice"));
+        index.index(product(2L, "B", "10.00", 1L, "alice"));
+
+        assertEquals(2, index.browse(new ProductQuery(null, null, null, new BigDecimal("1E+30"), null, null, 0, 10)).total());
+        assertEquals(0, index.browse(new ProductQuery(null, null, new BigDecimal("1E+999999999"), null, null, null, 0, 10)).total());
+        assertEquals(0, index.browse(new ProductQuery(null, null, new BigDecimal("-1E+30"), new BigDecimal("1E-999999999"), null, null, 0, 10)).total());
+    }
+
+    @Test
+    void browse_WithText_OnlyCountsMatchingProducts() {
+        index.index(product(1L, "Red shoe", "30.00", 1L, "alice"));
+        index.index(product(2L, "Red hat", "10.00", 2L, "bob"));
+        index.index(product(3L, "Blue shoe", "20.00", 1L, "bob"));
+
+        ProductBrowseResponse response = index.browse(new ProductQuery("shoe ", null, null, null, null, null, 0, 10));
+
+        assertEquals(2, response.total());
+        assertEquals(List.of(new FacetCount("1", "Electronics", 2)), response.facets().categories());
+    }
+
+    private static ProductQuery query(ProductSort sort, int offset, int limit) {
+        return new ProductQuery(null, null, null, null, null, sort, offset, limit);
+    }
+
+    private static int priceCount(ProductBrowseResponse response, String range) {
+        return response.facets().priceRanges().stream().filter(facet -> facet.value().equals(range)).findFirst().orElseThrow().count();
+    }
+
+    private static ProductDocument product(Long id, String name, String price, Long categoryId, String seller) {
+        return new ProductDocument(id, name, null, new BigDecimal(price), categoryId, categoryId == 1L ? "Electronics" : "Books", seller);
+    }
+
+    private static ProductDocument document(Long id, String name, String description) {
+        return new ProductDocument(id, name, description, new BigDecimal("10.00"), 1L, "Category", "seller");
+    }
+
+    private static List<Long> ids(ProductSearchResponse response) {
+        return ids(response.items());
+    }
+
+    private static List<Long> ids(List<ProductResponse> items) {
+        return items.stream().map(ProductResponse::id).toList();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ju.e_commerce_project.search;
+
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.repository.OrderItemRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggesterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private ProductSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new ProductSuggester(productRepository, orderItemRepository);
+    }
+
+    @Test
+    void suggest_MatchesNameAndLaterWordStarts() {
+        suggester.put(1L, "Wireless Mouse");
+        suggester.put(2L, "Gaming Mouse Pad");
+        suggester.put(3L, "Mousetrap");
+
+        assertEquals(List.of(2L, 3L, 1L), ids(suggester.suggest("mou", 10)));
+        assertEquals(List.of(2L, 1L), ids(suggester.suggest("mouse ", 10)));
+        assertEquals(List.of(2L), ids(suggester.suggest("Mouse P", 10)));
+        assertEquals(List.of(1L), ids(suggester.suggest("wire", 10)));
+        assertTrue(suggester.suggest("keyboard", 10).isEmpty());
+        assertTrue(suggester.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_RanksBySalesThenName() {
+        suggester.put(1L, "Tea Kettle");
+        suggester.put(2L, "Tea Cup");
+        suggester.put(3L, "Teapot");
+
+        assertEquals(List.of(2L, 1L, 3L), ids(suggester.suggest("tea", 10)));
+
+        suggester.recordSales(Map.of(3L, 5, 1L, 2));
+
+        assertEquals(List.of(3L, 1L, 2L), ids(suggester.suggest("tea", 10)));
+        assertEquals(List.of(3L, 1L), ids(suggester.suggest("tea", 2)));
+    }
+
+    @Test
+    void put_RenamedProductKeepsItsSalesAndLosesItsOldName() {
+        suggester.put(1L, "Desk Lamp");
+        suggester.put(2L, "Desk Organizer");
+        suggester.recordSales(Map.of(1L, 3));
+
+        suggester.put(1L, "Standing Desk");
+
+        assertTrue(suggester.suggest("lamp", 10).isEmpty());
+        assertEquals(List.of(1L, 2L), ids(suggester.suggest("desk", 10)));
+        assertEquals("Standing Desk", suggester.suggest("stand", 10).get(0).name());
+    }
+
+    @Test
+    void putAll_MatchesPuttingOneByOne() {
+        suggester.put(1L, "Coffee Grinder");
+        suggester.recordSales(Map.of(1L, 4));
+
+        suggester.putAll(List.of(
+                new ProductSuggestion(2L, "Coffee Mug"),
+                new ProductSuggestion(3L, "Cocoa Powder"),
+                new ProductSuggestion(1L, "Coffee Grinder Deluxe"),
+                new ProductSuggestion(4L, "Coffee")));
+
+        assertEquals(List.of(1L, 3L, 4L, 2L), ids(suggester.suggest("co", 10)));
+        assertEquals(List.of(1L, 4L, 2L), ids(suggester.suggest("coffee", 10)));
+        assertEquals(List.of(1L), ids(suggester.suggest("deluxe", 10)));
+        assertEquals(List.of(3L), ids(suggester.suggest("powder ", 10)));
+    }
+
+    @Test
+    void remove_PrunesTheTrieWithoutDisturbingSiblings() {
+        suggester.put(1L, "Cable");
+        suggester.put(2L, "Cable Tie");
+        suggester.put(3L, "Camera");
+
+        suggester.remove(2L);
+        suggester.remove(1L);
+
+        assertEquals(List.of(3L), ids(suggester.suggest("ca", 10)));
+        assertTrue(suggester.suggest("cab", 10).isEmpty());
+        assertTrue(suggester.suggest("tie", 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_LoadsNamesAndSales() {
+        when(orderItemRepository.findPopularity()).thenReturn(List.of(new ProductPopularity(2L, 7L)));
+        when(productRepository.findSuggestions(0L, Limit.of(5000))).thenReturn(List.of(
+                new ProductSuggestion(1L, "Sofa"), new ProductSuggestion(2L, "Sofa Bed")));
+        suggester.put(9L, "Sofa Table");
+
+        suggester.rebuild();
+
+        assertEquals(List.of(2L, 1L), ids(suggester.suggest("sof", 10)));
+    }
+
+    private static List<Long> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::id).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.ju.e_commerce_project.security;
+
+import com.ju.e_commerce_project.exception.PasswordHashingRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_DelegateToBCrypt() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, 5000);
+
+        String encoded = encoder.encode("password");
+
+        assertTrue(encoder.matches("password", encoded));
+        assertFalse(encoder.matches("wrong", encoded));
+    }
+
+    @Test
+    void matches_PoolAndQueueFull_RejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(started, release), 1, 0, 5000);
+
+        Thread busyThread = new Thread(() -> encoder.matches("password", "hash"));
+        busyThread.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("password", "hash"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        release.countDown();
+        busyThread.join();
+    }
+
+    @Test
+    void upgradeEncoding_WeakerHash_ReturnsTrue() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 4, 5000);
+        String weakHash = new BCryptPasswordEncoder(4).encode("password");
+
+        assertTrue(encoder.upgradeEncoding(weakHash));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+    }
+
+    @Test
+    void calibrateStrength_StaysWithinBounds() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, 5000);
+
+        int strength = BoundedPasswordEncoder.calibrateStrength(1, 4, 6);
+
+        assertTrue(strength >= 4 && strength <= 6);
+    }
+
+    private record BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release) implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return "hash";
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }
+    }
+}
@@ -1,24 +1,25 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.dto.response.LoginUserResponse;
 import com.ju.e_commerce_project.dto.response.RegisterUserResponse;
 import com.ju.e_commerce_project.dto.request.LoginUserRequest;
+import com.ju.e_commerce_project.dto.request.RefreshTokenRequest;
+import com.ju.e_commerce_project.exception.InvalidRefreshTokenException;
 import com.ju.e_commerce_project.dto.request.RegisterUserRequest;
 import com.ju.e_commerce_project.exception.UserAlreadyExistException;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.model.UserRole;
 import com.ju.e_commerce_project.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -29,6 +30,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class AuthServiceTest {
@@ -40,16 +43,16 @@ class AuthServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private JwtService jwtService;
 
     @Mock
-    private UserDetailsService userDetailsService;
+    private UserDetailsCache userDetailsCache;
 
     @Mock
-    private JwtService jwtService;
+    private RefreshTokenService refreshTokenService;
 
     @Mock
-    private Authentication authentication;
+    private TokenRevocationService tokenRevocationService;
 
     @InjectMocks
     private AuthService authService;
@@ -57,11 +60,8 @@ class AuthServiceTest {
     @Test
     void registerUser_NewUser_ReturnsRegisterUserResponse() {
         RegisterUserRequest request = new RegisterUserRequest("testuser", "password", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
-        when(userRepository.existsByUsername(request.username())).thenReturn(false);
-        when(userRepository.existsByEmail(request.email())).thenReturn(false);
         when(passwordEncoder.encode(request.password())).thenReturn("encodedPassword");
-        when(userDetailsService.loadUserByUsername(request.username())).thenReturn(org.springframework.security.core.userdetails.User.withUsername(request.username()).password("encodedPassword").roles(request.role().name()).build());
-        when(jwtService.generateToken(any(UserDetails.class))).thenReturn("mockedToken");
+        when(jwtService.generateToken(any(User.class))).thenReturn("mockedToken");
 
         RegisterUserResponse response = authService.registerUser(request);
 
@@ -69,50 +69,118 @@ class AuthServiceTest {
         assertEquals(request.username(), response.username());
         assertEquals("mockedToken", response.accessToken());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, never()).existsByUsername(any());
+        verify(userRepository, never()).existsByEmail(any());
     }
 
     @Test
     void registerUser_ExistingUsername_ThrowsUserAlreadyExistException() {
         RegisterUserRequest request = new RegisterUserRequest("testuser", "password", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
         when(userRepository.existsByUsername(request.username())).thenReturn(true);
 
-        assertThrows(UserAlreadyExistException.class, () -> authService.registerUser(request));
+        UserAlreadyExistException exception = assertThrows(UserAlreadyExistException.class, () -> authService.registerUser(request));
+        assertEquals("Username already exists", exception.getMessage());
     }
 
     @Test
     void registerUser_ExistingEmail_ThrowsUserAlreadyExistException() {
         RegisterUserRequest request = new RegisterUserRequest("testuser", "password", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("Duplicate entry"));
         when(userRepository.existsByUsername(request.username())).thenReturn(false);
         when(userRepository.existsByEmail(request.email())).thenReturn(true);
 
-        assertThrows(UserAlreadyExistException.class, () -> authService.registerUser(request));
+        UserAlreadyExistException exception = assertThrows(UserAlreadyExistException.class, () -> authService.registerUser(request));
+        assertEquals("Email already exists", exception.getMessage());
     }
 
     @Test
     void loginUser_ValidCredentials_ReturnsLoginUserResponse() {
         LoginUserRequest request = new LoginUserRequest("testuser", "password");
         User user = new User(request.username(), "encodedPassword", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
-        UserDetails userDetails = org.springframework.security.core.userdetails.User.withUsername(request.username()).password("encodedPassword").roles(UserRole.Customer.name()).build();
         when(userRepository.findByUsername(request.username())).thenReturn(Optional.of(user));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenReturn(authentication);
-        when(userDetailsService.loadUserByUsername(request.username())).thenReturn(userDetails);
-        when(jwtService.generateToken(userDetails)).thenReturn("mockedToken");
+        when(passwordEncoder.matches(request.password(), "encodedPassword")).thenReturn(true);
+        when(jwtService.generateToken(user)).thenReturn("mockedToken");
+        when(refreshTokenService.createRefreshToken(user)).thenReturn("mockedRefreshToken");
 
         LoginUserResponse response = authService.loginUser(request);
 
         assertNotNull(response);
         assertEquals(request.username(), response.username());
         assertEquals("mockedToken", response.accessToken());
+        assertEquals("mockedRefreshToken", response.refreshToken());
+        assertEquals(UserRole.Customer, response.role());
+        verify(userRepository, times(1)).findByUsername(request.username());
+    }
+
+    @Test
+    void loginUser_OutdatedPasswordHash_RehashesPassword() {
+        LoginUserRequest request = new LoginUserRequest("testuser", "password");
+        User user = new User(request.username(), "oldHash", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+        when(userRepository.findByUsername(request.username())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(request.password(), "oldHash")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("oldHash")).thenReturn(true);
+        when(passwordEncoder.encode(request.password())).thenReturn("newHash");
+
+        authService.loginUser(request);
+
+        assertEquals("newHash", user.getPassword());
+        verify(userRepository, times(1)).save(user);
+        verify(userDetailsCache, times(1)).invalidate(request.username());
     }
 
     @Test
     void loginUser_InvalidCredentials_ThrowsBadCredentialsException() {
         LoginUserRequest request = new LoginUserRequest("testuser", "wrongpassword");
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class))).thenThrow(new BadCredentialsException("Invalid credentials"));
+        User user = new User(request.username(), "encodedPassword", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+        when(userRepository.findByUsername(request.username())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(request.password(), "encodedPassword")).thenReturn(false);
 
         assertThrows(BadCredentialsException.class, () -> authService.loginUser(request));
     }
 
+    @Test
+    void loginUser_UnknownUsername_ChecksPasswordAndThrowsBadCredentialsException() {
+        LoginUserRequest request = new LoginUserRequest("nonexistentuser", "password");
+        when(userRepository.findByUsername(request.username())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(any())).thenReturn("dummyHash");
+
+        assertThrows(BadCredentialsException.class, () -> authService.loginUser(request));
+        verify(passwordEncoder, times(1)).matches(request.password(), "dummyHash");
+    }
+
+    @Test
+    void refreshAccessToken_ValidToken_ReturnsNewTokensWithoutHashing() {
+        User user = new User("testuser", "encodedPassword", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+        when(refreshTokenService.rotate("refreshToken")).thenReturn(new RefreshTokenService.RotatedRefreshToken(user, "newRefreshToken"));
+        when(jwtService.generateToken(user)).thenReturn("newToken");
+
+        LoginUserResponse response = authService.refreshAccessToken(new RefreshTokenRequest("refreshToken"));
+
+        assertEquals("testuser", response.username());
+        assertEquals("newToken", response.accessToken());
+        assertEquals("newRefreshToken", response.refreshToken());
+        verifyNoInteractions(passwordEncoder, userRepository);
+    }
+
+    @Test
+    void refreshAccessToken_InvalidToken_ThrowsInvalidRefreshTokenException() {
+        when(refreshTokenService.rotate("unknown")).thenThrow(new InvalidRefreshTokenException("Invalid refresh token"));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refreshAccessToken(new RefreshTokenRequest("unknown")));
+    }
+
+    @Test
+    void logout_RevokesAccessAndRefreshTokens() {
+        Claims claims = Jwts.claims().id("jti").build();
+        when(jwtService.extractAllClaims("accessToken")).thenReturn(claims);
+
+        authService.logout("accessToken", "refreshToken");
+
+        verify(tokenRevocationService).revoke(claims);
+        verify(refreshTokenService).revoke("refreshToken");
+    }
+
     @Test
     void findUserByUsername_ExistingUsername_ReturnsUser() {
         String username = "testuser";
@@ -0,0 +1,109 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.CartOperation;
+import com.ju.e_commerce_project.dto.request.CartOperationType;
+import com.ju.e_commerce_project.dto.request.UpdateCartRequest;
+import com.ju.e_commerce_project.dto.response.CartItemResponse;
+import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class CartConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 15;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Product> products = new ArrayList<>();
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Race Category " + System.nanoTime()));
+        User seller = saveUser("race-seller-", UserRole.Seller);
+        for (int i = 0; i < 3; i++) {
+            products.add(productRepository.save(new Product("Race Product " + i, null, new BigDecimal("1.00"), category, seller)));
+        }
+        // No cart yet, so the first requests also race to create it
+        customer = saveUser("race-customer-", UserRole.Customer);
+    }
+
+    @Test
+    void concurrentAdds_EndOnOneLinePerProductWithEveryQuantityCounted() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS; round++) {
+                    // One add of each product on its own, then one PATCH adding all three again
+                    for (Product product : products) {
+                        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product.getId(), 1));
+                    }
+                    cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(products.stream()
+                            .map(product -> new CartOperation(CartOperationType.ADD, product.getId(), null, 2))
+                            .toList()));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> result : results) {
+                // Rethrows whatever a request failed with
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CartResponse cart = cartService.getCart(customer.getUsername());
+        Map<Long, Integer> quantities = cart.items().stream()
+                .collect(Collectors.toMap(CartItemResponse::productId, CartItemResponse::quantity));
+        assertEquals(products.size(), cart.items().size());
+        for (Product product : products) {
+            assertEquals(THREADS * ROUNDS * 3, quantities.get(product.getId()));
+        }
+        assertEquals(THREADS * ROUNDS * (products.size() + 1), cart.version());
+    }
+
+    private User saveUser(String prefix, UserRole role) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Race", "User", "1234567890", "Race Address", role));
+    }
+}
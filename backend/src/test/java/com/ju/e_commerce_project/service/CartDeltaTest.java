@@ -0,0 +1,123 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.UpdateCartItemRequest;
+import com.ju.e_commerce_project.dto.response.CartDeltaResponse;
+import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.model.CartItem;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CartDeltaTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Product> products = new ArrayList<>();
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Delta Category " + System.nanoTime()));
+        User seller = saveUser("delta-seller-", UserRole.Seller);
+        for (int i = 0; i < 20; i++) {
+            products.add(productRepository.save(new Product("Delta Product " + i, "Description " + i, new BigDecimal("4.50"), category, seller)));
+        }
+        customer = saveUser("delta-customer-", UserRole.Customer);
+    }
+
+    @Test
+    void mutations_ReturnTheChangedLineTotalsAndConsecutiveVersions() {
+        long startVersion = cartService.getCart(customer.getUsername()).version();
+
+        CartDeltaResponse added = cartService.addItemToCartDelta(customer.getUsername(), new AddItemToCartRequest(products.get(0).getId(), 2));
+        CartDeltaResponse addedAgain = cartService.addItemToCartDelta(customer.getUsername(), new AddItemToCartRequest(products.get(1).getId(), 1));
+
+        assertEquals(startVersion + 1, added.version());
+        assertEquals(products.get(0).getId(), added.item().productId());
+        assertEquals(2, added.item().quantity());
+        assertEquals(0, new BigDecimal("9.00").compareTo(added.item().subtotal()));
+        assertEquals(startVersion + 2, addedAgain.version());
+        assertEquals(0, new BigDecimal("13.50").compareTo(addedAgain.totalPrice()));
+        assertEquals(3, addedAgain.totalItems());
+
+        CartDeltaResponse updated = cartService.updateCartItemDelta(customer.getUsername(), added.item().cartItemId(), new UpdateCartItemRequest(5));
+        assertEquals(startVersion + 3, updated.version());
+        assertEquals(5, updated.item().quantity());
+        assertEquals(6, updated.totalItems());
+
+        CartDeltaResponse removed = cartService.removeCartItemDelta(customer.getUsername(), added.item().cartItemId());
+        assertEquals(startVersion + 4, removed.version());
+        assertNull(removed.item());
+        assertEquals(added.item().cartItemId(), removed.removedCartItemId());
+        assertEquals(0, new BigDecimal("4.50").compareTo(removed.totalPrice()));
+        assertEquals(1, removed.totalItems());
+
+        CartResponse cart = cartService.getCart(customer.getUsername());
+        assertEquals(startVersion + 4, cart.version());
+        assertEquals(removed.totalPrice(), cart.totalPrice());
+    }
+
+    @Test
+    void fullResponses_CarryTheBumpedVersion() {
+        long startVersion = cartService.getCart(customer.getUsername()).version();
+
+        CartResponse cart = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(products.get(0).getId(), 1));
+
+        assertEquals(startVersion + 1, cart.version());
+        assertEquals(startVersion + 2, cartService.removeCartItem(customer.getUsername(), cart.items().get(0).cartItemId()).version());
+    }
+
+    @Test
+    void deltaMutation_DoesNotReadTheOtherLines() {
+        for (Product product : products) {
+            cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product.getId(), 1));
+        }
+        Long cartItemId = cartService.getCart(customer.getUsername()).items().get(0).cartItemId();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        CartDeltaResponse delta = cartService.updateCartItemDelta(customer.getUsername(), cartItemId, new UpdateCartItemRequest(3));
+
+        assertEquals(22, delta.totalItems());
+        assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+        assertEquals(1, statistics.getEntityStatistics(CartItem.class.getName()).getLoadCount());
+    }
+
+    private User saveUser(String prefix, UserRole role) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Delta", "User", "1234567890", "Delta Address", role));
+    }
+}
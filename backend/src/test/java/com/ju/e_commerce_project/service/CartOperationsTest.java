@@ -0,0 +1,150 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.request.CartOperation;
+import com.ju.e_commerce_project.dto.request.CartOperationType;
+import com.ju.e_commerce_project.dto.request.UpdateCartRequest;
+import com.ju.e_commerce_project.dto.response.CartItemResponse;
+import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.exception.InvalidInputException;
+import com.ju.e_commerce_project.exception.ResourceNotFoundException;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ju.e_commerce_project.service.RecordingStatementInspector")
+class CartOperationsTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Product> products = new ArrayList<>();
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Batch Category " + System.nanoTime()));
+        User seller = saveUser("batch-seller-", UserRole.Seller);
+        for (int i = 0; i < 20; i++) {
+            products.add(productRepository.save(new Product("Batch Product " + i, null, new BigDecimal("2.00"), category, seller)));
+        }
+        customer = saveUser("batch-customer-", UserRole.Customer);
+    }
+
+    @Test
+    void applyOperations_AppliesEveryOperationInOrder() {
+        CartResponse before = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(0), 1));
+        cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(1), 1));
+        before = cartService.addItemToCart(customer.getUsername(), new AddItemToCartRequest(product(2), 1));
+        Map<Long, Long> itemIds = before.items().stream().collect(Collectors.toMap(CartItemResponse::productId, CartItemResponse::cartItemId));
+
+        CartResponse after = cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                add(product(0), 2),
+                new CartOperation(CartOperationType.UPDATE, null, itemIds.get(product(1)), 7),
+                new CartOperation(CartOperationType.REMOVE, null, itemIds.get(product(2)), null),
+                add(product(2), 4),
+                add(product(3), 1),
+                add(product(3), 1)
+        )));
+
+        assertEquals(before.version() + 1, after.version());
+        Map<Long, CartItemResponse> lines = after.items().stream().collect(Collectors.toMap(CartItemResponse::productId, line -> line));
+        assertEquals(4, lines.size());
+        assertEquals(3, lines.get(product(0)).quantity());
+        assertEquals(7, lines.get(product(1)).quantity());
+        assertEquals(4, lines.get(product(2)).quantity());
+        assertEquals(itemIds.get(product(2)), lines.get(product(2)).cartItemId());
+        assertEquals(2, lines.get(product(3)).quantity());
+        assertEquals(16, after.totalItems());
+        assertEquals(0, new BigDecimal("32.00").compareTo(after.totalPrice()));
+    }
+
+    @Test
+    void applyOperations_ReadsAndWritesOnceForManyLines() {
+        List<CartOperation> operations = new ArrayList<>();
+        products.forEach(product -> operations.add(add(product.getId(), 1)));
+        RecordingStatementInspector.clear();
+
+        CartResponse cart = cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(operations));
+
+        assertEquals(products.size(), cart.items().size());
+        // New lines go out as one JDBC batch of upserts, past Hibernate
+        assertEquals(0, RecordingStatementInspector.count("insert into cart_items"));
+        assertEquals(1, RecordingStatementInspector.matching("from users"));
+        assertEquals(1, RecordingStatementInspector.matching("from products"));
+    }
+
+    @Test
+    void applyOperations_WithAnotherCustomersLine_ChangesNothing() {
+        User otherCustomer = saveUser("batch-other-", UserRole.Customer);
+        Long otherItemId = cartService.addItemToCart(otherCustomer.getUsername(), new AddItemToCartRequest(product(0), 1)).items().get(0).cartItemId();
+        long version = cartService.getCart(customer.getUsername()).version();
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                add(product(1), 1),
+                new CartOperation(CartOperationType.REMOVE, null, otherItemId, null)
+        ))));
+
+        CartResponse cart = cartService.getCart(customer.getUsername());
+        assertEquals(version, cart.version());
+        assertEquals(0, cart.items().size());
+        assertNotEquals(0, cartService.getCart(otherCustomer.getUsername()).items().size());
+    }
+
+    @Test
+    void applyOperations_WithMissingFields_ThrowsInvalidInput() {
+        assertThrows(InvalidInputException.class, () -> cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                new CartOperation(CartOperationType.ADD, product(0), null, null)
+        ))));
+        assertThrows(InvalidInputException.class, () -> cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                new CartOperation(CartOperationType.UPDATE, null, null, 2)
+        ))));
+    }
+
+    @Test
+    void applyOperations_WithUnknownProduct_ThrowsResourceNotFound() {
+        assertThrows(ResourceNotFoundException.class, () -> cartService.applyOperations(customer.getUsername(), new UpdateCartRequest(List.of(
+                add(Long.MAX_VALUE, 1)
+        ))));
+    }
+
+    private Long product(int index) {
+        return products.get(index).getId();
+    }
+
+    private static CartOperation add(Long productId, int quantity) {
+        return new CartOperation(CartOperationType.ADD, productId, null, quantity);
+    }
+
+    private User saveUser(String prefix, UserRole role) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Batch", "User", "1234567890", "Batch Address", role));
+    }
+}
@@ -0,0 +1,130 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.request.AddItemToCartRequest;
+import com.ju.e_commerce_project.dto.response.CartItemResponse;
+import com.ju.e_commerce_project.dto.response.CartResponse;
+import com.ju.e_commerce_project.model.Cart;
+import com.ju.e_commerce_project.model.CartItem;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.CartRepository;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class CartReadQueryTest {
+
+    private static final int LINES = 30;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Product> products = new ArrayList<>();
+    private Product extraProduct;
+    private User smallCartCustomer;
+    private User largeCartCustomer;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Cart Category " + System.nanoTime()));
+        User seller = saveUser("cart-seller-", UserRole.Seller);
+        for (int i = 0; i < LINES; i++) {
+            products.add(productRepository.save(new Product("Cart Product " + i, "Description " + i,
+                    new BigDecimal("1.25").add(BigDecimal.valueOf(i)), category, seller)));
+        }
+        extraProduct = productRepository.save(new Product("Extra Product", null, new BigDecimal("3.00"), category, seller));
+        smallCartCustomer = saveCart(1);
+        largeCartCustomer = saveCart(LINES);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void getCart_ReturnsLinesAndTotals() {
+        CartResponse cart = cartService.getCart(largeCartCustomer.getUsername());
+
+        assertEquals(LINES, cart.items().size());
+        assertEquals(largeCartCustomer.getUserId(), cart.userId());
+        CartItemResponse last = cart.items().get(LINES - 1);
+        assertEquals(products.get(LINES - 1).getId(), last.productId());
+        assertEquals("Cart Product 29", last.productName());
+        assertEquals("Description 29", last.productDescription());
+        assertEquals(0, new BigDecimal("30.25").compareTo(last.unitPrice()));
+        assertEquals(2, last.quantity());
+        assertEquals(0, new BigDecimal("60.50").compareTo(last.subtotal()));
+        // 2 x (30 x 1.25 + 0 + 1 + ... + 29)
+        assertEquals(0, new BigDecimal("945.00").compareTo(cart.totalPrice()));
+        assertEquals(2 * LINES, cart.totalItems());
+    }
+
+    @Test
+    void getCart_StatementCountDoesNotGrowWithTheCart() {
+        long smallCartStatements = countStatements(() -> cartService.getCart(smallCartCustomer.getUsername()));
+        long largeCartStatements = countStatements(() -> cartService.getCart(largeCartCustomer.getUsername()));
+
+        assertEquals(smallCartStatements, largeCartStatements);
+        assertEquals(0, statistics.getEntityStatistics(Product.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void addItemToCart_StatementCountDoesNotGrowWithTheCart() {
+        AddItemToCartRequest request = new AddItemToCartRequest(extraProduct.getId(), 1);
+
+        long smallCartStatements = countStatements(() -> cartService.addItemToCart(smallCartCustomer.getUsername(), request));
+        long largeCartStatements = countStatements(() -> cartService.addItemToCart(largeCartCustomer.getUsername(), request));
+
+        assertEquals(smallCartStatements, largeCartStatements);
+    }
+
+    private long countStatements(Runnable call) {
+        statistics.clear();
+        call.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User saveCart(int lines) {
+        User customer = saveUser("cart-customer-", UserRole.Customer);
+        Cart cart = new Cart(customer);
+        for (int i = 0; i < lines; i++) {
+            cart.addCartItem(new CartItem(cart, products.get(i), 2));
+        }
+        cartRepository.save(cart);
+        return customer;
+    }
+
+    private User saveUser(String prefix, UserRole role) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Cart", "User", "1234567890", "Cart Address", role));
+    }
+}
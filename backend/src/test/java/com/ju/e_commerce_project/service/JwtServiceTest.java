@@ -0,0 +1,81 @@
+package com.ju.e_commerce_project.service;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtServiceTest {
+
+    private static final String SECRET_KEY = "5367566859703373367639792F423F452848284D6251655468576D5A71347437";
+
+    private JwtService jwtService;
+    private UserDetails userDetails;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService(SECRET_KEY, 100, 15);
+        userDetails = User.withUsername("testuser").password("encodedPassword").roles("Customer").build();
+    }
+
+    @Test
+    void extractAllClaims_SameToken_VerifiesOnlyOnce() {
+        String token = jwtService.generateToken(userDetails);
+
+        Claims first = jwtService.extractAllClaims(token);
+        Claims second = jwtService.extractAllClaims(token);
+
+        assertSame(first, second);
+        assertEquals("testuser", jwtService.extractUsername(token));
+        assertEquals(1, jwtService.verifiedTokenCacheStats().misses());
+        assertEquals(2, jwtService.verifiedTokenCacheStats().hits());
+    }
+
+    @Test
+    void isTokenValid_MatchingUser_ReturnsTrue() {
+        String token = jwtService.generateToken(userDetails);
+
+        assertTrue(jwtService.isTokenValid(token, userDetails));
+    }
+
+    @Test
+    void isTokenValid_DifferentUser_ReturnsFalse() {
+        String token = jwtService.generateToken(userDetails);
+        UserDetails otherUser = User.withUsername("otheruser").password("encodedPassword").roles("Customer").build();
+
+        assertFalse(jwtService.isTokenValid(token, otherUser));
+    }
+
+    @Test
+    void extractAllClaims_TamperedToken_ThrowsSignatureException() {
+        String token = jwtService.generateToken(userDetails);
+        int index = token.length() - 10;
+        char replacement = token.charAt(index) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, index) + replacement + token.substring(index + 1);
+
+        assertThrows(SignatureException.class, () -> jwtService.extractAllClaims(tampered));
+    }
+
+    @Test
+    void extractAllClaims_ExpiredToken_ThrowsExpiredJwtException() {
+        String token = Jwts.builder()
+                .subject("testuser")
+                .issuedAt(new Date(System.currentTimeMillis() - 120_000))
+                .expiration(new Date(System.currentTimeMillis() - 60_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_KEY)), Jwts.SIG.HS256)
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtService.extractAllClaims(token));
+        assertEquals(0, jwtService.verifiedTokenCacheStats().size());
+    }
+}
@@ -0,0 +1,75 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.request.PlaceOrderRequest;
+import com.ju.e_commerce_project.dto.response.OrderResponse;
+import com.ju.e_commerce_project.model.Cart;
+import com.ju.e_commerce_project.model.CartItem;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.model.enums.PaymentMethod;
+import com.ju.e_commerce_project.repository.CartRepository;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.ju.e_commerce_project.service.RecordingStatementInspector")
+class OrderPlacementQueryTest {
+
+    private static final int LINES = 50;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        ProductCategory category = productCategoryRepository.save(new ProductCategory("Order Category " + System.nanoTime()));
+        User seller = userRepository.save(new User("order-seller-" + System.nanoTime(), "encodedPassword", "order-seller" + System.nanoTime() + "@example.com",
+                "Order", "Seller", "1234567890", "Seller Address", UserRole.Seller));
+        customer = userRepository.save(new User("order-customer-" + System.nanoTime(), "encodedPassword", "order-customer" + System.nanoTime() + "@example.com",
+                "Order", "Customer", "1234567890", "Customer Address", UserRole.Customer));
+
+        Cart cart = new Cart(customer);
+        for (int i = 0; i < LINES; i++) {
+            Product product = productRepository.save(new Product("Order Product " + i, null, new BigDecimal("2.50"), category, seller));
+            cart.addCartItem(new CartItem(cart, product, 2));
+        }
+        cartRepository.save(cart);
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    void placeOrder_InsertsAllLinesInOneBatch() {
+        OrderResponse order = orderService.placeOrder(customer.getUsername(),
+                new PlaceOrderRequest("1 Order Street, Order City", "1234567890", PaymentMethod.CASH_ON_DELIVERY, null));
+
+        assertEquals(LINES, order.items().size());
+        assertEquals(0, new BigDecimal("250.00").compareTo(order.totalAmount()));
+        assertEquals(1, RecordingStatementInspector.count("insert into orders"));
+        assertEquals(1, RecordingStatementInspector.count("insert into order_items"));
+        assertEquals(1, RecordingStatementInspector.count("delete from cart_items"));
+    }
+}
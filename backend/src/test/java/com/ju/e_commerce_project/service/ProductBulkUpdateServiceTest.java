@@ -0,0 +1,192 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.cache.ProductListingCache;
+import com.ju.e_commerce_project.dto.request.BulkUpdateProductsRequest;
+import com.ju.e_commerce_project.dto.request.PriceRule;
+import com.ju.e_commerce_project.dto.request.ProductChange;
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.exception.InvalidInputException;
+import com.ju.e_commerce_project.exception.ProductNotFoundException;
+import com.ju.e_commerce_project.exception.UnauthorizedOperationException;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.search.ProductQuery;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// A chunk size of 2 makes every update below span several statements
+@SpringBootTest(properties = "catalog.bulk-update.chunk-size=2")
+class ProductBulkUpdateServiceTest {
+
+    @Autowired
+    private ProductBulkUpdateService productBulkUpdateService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductListingCache productListingCache;
+
+    private ProductCategory shoes;
+    private ProductCategory boots;
+    private User seller;
+    private final List<Product> products = new ArrayList<>();
+    private Product otherSellersShoe;
+
+    @BeforeEach
+    void setUp() {
+        shoes = productCategoryRepository.save(new ProductCategory("Bulk Shoes " + System.nanoTime()));
+        boots = productCategoryRepository.save(new ProductCategory("Bulk Boots " + System.nanoTime()));
+        productCategoryService.reload();
+        seller = saveSeller("bulk-seller-");
+        for (int i = 0; i < 5; i++) {
+            products.add(productRepository.save(new Product("Bulk Shoe " + i, null, new BigDecimal("20.00"), shoes, seller)));
+        }
+        products.add(productRepository.save(new Product("Bulk Boot", null, new BigDecimal("80.00"), boots, seller)));
+        otherSellersShoe = productRepository.save(new Product("Other Shoe", null, new BigDecimal("20.00"), shoes, saveSeller("bulk-other-")));
+        productSearchIndex.rebuild();
+    }
+
+    @Test
+    void updateProducts_WithChanges_UpdatesPricesAndCategories() {
+        Product first = products.get(0);
+        Product second = products.get(1);
+        Product third = products.get(2);
+        // Loads the shoes listing into the cache
+        productService.getProductsByCategory(shoes.getId(), null, 10, true);
+
+        var response = productBulkUpdateService.updateProducts(seller.getUsername(), new BulkUpdateProductsRequest(List.of(
+                new ProductChange(first.getId(), new BigDecimal("18.50"), null),
+                new ProductChange(second.getId(), null, boots.getId()),
+                new ProductChange(third.getId(), new BigDecimal("99.99"), boots.getId())
+        ), null));
+
+        assertEquals(3, response.updated());
+        Product updatedFirst = productRepository.findById(first.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("18.50").compareTo(updatedFirst.getPrice()));
+        assertEquals(shoes.getId(), updatedFirst.getCategory().getId());
+        assertFalse(updatedFirst.getUpdatedAt().before(first.getUpdatedAt()));
+        Product updatedSecond = productRepository.findById(second.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("20.00").compareTo(updatedSecond.getPrice()));
+        assertEquals(boots.getId(), updatedSecond.getCategory().getId());
+        Product updatedThird = productRepository.findById(third.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("99.99").compareTo(updatedThird.getPrice()));
+        assertEquals(boots.getId(), updatedThird.getCategory().getId());
+
+        ProductPageResponse shoesPage = productService.getProductsByCategory(shoes.getId(), null, 10, true);
+        assertEquals(List.of(first.getId(), products.get(3).getId(), products.get(4).getId(), otherSellersShoe.getId()),
+                shoesPage.items().stream().map(ProductResponse::id).toList());
+        assertEquals(0, new BigDecimal("18.50").compareTo(shoesPage.items().get(0).price()));
+
+        List<ProductResponse> indexedBoots = productSearchIndex.browse(new ProductQuery(
+                null, Set.of(boots.getId()), null, null, null, null, 0, 10)).items();
+        assertEquals(Set.of(second.getId(), third.getId(), products.get(5).getId()),
+                Set.copyOf(indexedBoots.stream().map(ProductResponse::id).toList()));
+    }
+
+    @Test
+    void updateProducts_WithAnotherSellersProduct_ChangesNothing() {
+        BulkUpdateProductsRequest request = new BulkUpdateProductsRequest(List.of(
+                new ProductChange(products.get(0).getId(), BigDecimal.ONE, null),
+                new ProductChange(products.get(1).getId(), BigDecimal.ONE, null),
+                new ProductChange(otherSellersShoe.getId(), BigDecimal.ONE, null)
+        ), null);
+
+        assertThrows(UnauthorizedOperationException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(), request));
+        assertEquals(0, new BigDecimal("20.00").compareTo(productRepository.findById(products.get(0).getId()).orElseThrow().getPrice()));
+    }
+
+    @Test
+    void updateProducts_WithUnknownProduct_ThrowsProductNotFound() {
+        BulkUpdateProductsRequest request = new BulkUpdateProductsRequest(List.of(
+                new ProductChange(products.get(0).getId(), BigDecimal.ONE, null),
+                new ProductChange(Long.MAX_VALUE, BigDecimal.ONE, null)
+        ), null);
+
+        assertThrows(ProductNotFoundException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(), request));
+    }
+
+    @Test
+    void updateProducts_WithInvalidRequests_ThrowsInvalidInput() {
+        Long productId = products.get(0).getId();
+        PriceRule rule = new PriceRule(null, BigDecimal.TEN);
+
+        assertThrows(InvalidInputException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(null, null)));
+        assertThrows(InvalidInputException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(List.of(new ProductChange(productId, BigDecimal.ONE, null)), rule)));
+        assertThrows(InvalidInputException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(List.of(new ProductChange(productId, null, null)), null)));
+        assertThrows(InvalidInputException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(List.of(new ProductChange(productId, BigDecimal.ONE, null),
+                        new ProductChange(productId, BigDecimal.TEN, null)), null)));
+    }
+
+    @Test
+    void updateProducts_WithRule_RepricesTheSellersProductsInTheCategory() {
+        long epoch = productListingCache.epoch();
+        var response = productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(null, new PriceRule(shoes.getId(), new BigDecimal("-12.5"))));
+
+        assertEquals(5, response.updated());
+        // Three chunks, one invalidation
+        assertEquals(epoch + 1, productListingCache.epoch());
+        for (Product shoe : products.subList(0, 5)) {
+            assertEquals(0, new BigDecimal("17.50").compareTo(productRepository.findById(shoe.getId()).orElseThrow().getPrice()));
+        }
+        assertEquals(0, new BigDecimal("80.00").compareTo(productRepository.findById(products.get(5).getId()).orElseThrow().getPrice()));
+        assertEquals(0, new BigDecimal("20.00").compareTo(productRepository.findById(otherSellersShoe.getId()).orElseThrow().getPrice()));
+
+        List<ProductResponse> indexed = productSearchIndex.browse(new ProductQuery(
+                null, Set.of(shoes.getId()), null, new BigDecimal("17.50"), Set.of(seller.getUsername()), null, 0, 10)).items();
+        assertEquals(5, indexed.size());
+    }
+
+    @Test
+    void updateProducts_WithRuleOverflowingThePriceColumn_ChangesNothing() {
+        productBulkUpdateService.updateProducts(seller.getUsername(), new BulkUpdateProductsRequest(List.of(
+                new ProductChange(products.get(5).getId(), new BigDecimal("50000000.00"), null)), null));
+
+        assertThrows(InvalidInputException.class, () -> productBulkUpdateService.updateProducts(seller.getUsername(),
+                new BulkUpdateProductsRequest(null, new PriceRule(null, new BigDecimal("100")))));
+        assertEquals(0, new BigDecimal("20.00").compareTo(productRepository.findById(products.get(0).getId()).orElseThrow().getPrice()));
+    }
+
+    private User saveSeller(String prefix) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Bulk", "Seller", "1234567890", "Bulk Address", UserRole.Seller));
+    }
+}
@@ -3,7 +3,6 @@ package com.ju.e_commerce_project.service;
 import com.ju.e_commerce_project.exception.ProductCategoryNotFoundException;
 import com.ju.e_commerce_project.model.ProductCategory;
 import com.ju.e_commerce_project.repository.ProductCategoryRepository;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -16,6 +15,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,23 +28,26 @@ class ProductCategoryServiceTest {
     private ProductCategoryService productCategoryService;
 
     @Test
-    void findCategoryById_ExistingId_ReturnsCategory() {
+    void findCategoryById_ExistingId_ReturnsCategoryFromSnapshot() {
         Long categoryId = 1L;
-        ProductCategory expectedCategory = new ProductCategory("Electronics");
-        expectedCategory.setId(categoryId);
+        ProductCategory expectedCategory = category(categoryId, "Electronics");
 
-        when(productCategoryRepository.findById(categoryId)).thenReturn(Optional.of(expectedCategory));
+        when(productCategoryRepository.findAll()).thenReturn(List.of(expectedCategory));
 
         ProductCategory actualCategory = productCategoryService.findCategoryById(categoryId);
+        productCategoryService.findCategoryById(categoryId);
 
         assertNotNull(actualCategory);
         assertEquals(expectedCategory.getId(), actualCategory.getId());
         assertEquals(expectedCategory.getName(), actualCategory.getName());
+        verify(productCategoryRepository, times(1)).findAll();
+        verify(productCategoryRepository, never()).findById(anyLong());
     }
 
     @Test
     void findCategoryById_NonExistingId_ThrowsProductCategoryNotFoundException() {
         Long categoryId = 99L;
+        when(productCategoryRepository.findAll()).thenReturn(Collections.emptyList());
         when(productCategoryRepository.findById(categoryId)).thenReturn(Optional.empty());
 
         assertThrows(ProductCategoryNotFoundException.class, () -> {
@@ -52,21 +55,64 @@ class ProductCategoryServiceTest {
         });
     }
 
+    @Test
+    void findCategoryById_CategoryAddedAfterSnapshot_IsFoundAndSnapshotReloaded() {
+        ProductCategory existing = category(1L, "Electronics");
+        ProductCategory added = category(2L, "Books");
+        when(productCategoryRepository.findAll()).thenReturn(List.of(existing), List.of(existing, added));
+        when(productCategoryRepository.findById(2L)).thenReturn(Optional.of(added));
+
+        assertEquals("Books", productCategoryService.findCategoryById(2L).getName());
+        assertEquals(2, productCategoryService.getAllCategories().size());
+        verify(productCategoryRepository, times(2)).findAll();
+    }
+
     @Test
     void getAllCategories_shouldReturnListOfCategories_whenRepositoryReturnsCategories() {
-        ProductCategory cat1 = new ProductCategory("Electronics");
-        cat1.setId(1L);
-        ProductCategory cat2 = new ProductCategory("Books");
-        cat2.setId(2L);
+        ProductCategory cat1 = category(1L, "Electronics");
+        ProductCategory cat2 = category(2L, "Books");
         List<ProductCategory> expectedCategories = Arrays.asList(cat1, cat2);
 
         when(productCategoryRepository.findAll()).thenReturn(expectedCategories);
 
         List<ProductCategory> actualCategories = productCategoryService.getAllCategories();
+        productCategoryService.getAllCategories();
 
         assertNotNull(actualCategories, "The returned list should not be null.");
         assertEquals(2, actualCategories.size(), "The list size should match the expected size.");
         assertEquals(expectedCategories, actualCategories, "The returned list should match the expected list.");
         verify(productCategoryRepository, times(1)).findAll();
     }
+
+    @Test
+    void reload_SwapsInANewSnapshot() {
+        when(productCategoryRepository.findAll()).thenReturn(List.of(category(1L, "Electronics")), List.of(category(1L, "Gadgets")));
+
+        assertEquals("Electronics", productCategoryService.findCategoryById(1L).getName());
+        productCategoryService.reload();
+
+        assertEquals("Gadgets", productCategoryService.findCategoryById(1L).getName());
+    }
+
+    @Test
+    void getCategoriesETag_ChangesOnlyWhenCategoriesChange() {
+        when(productCategoryRepository.findAll()).thenReturn(
+                List.of(category(1L, "Electronics")), List.of(category(1L, "Electronics")), List.of(category(1L, "Gadgets")));
+
+        String first = productCategoryService.getCategoriesETag();
+        productCategoryService.reload();
+        String unchanged = productCategoryService.getCategoriesETag();
+        productCategoryService.reload();
+        String renamed = productCategoryService.getCategoriesETag();
+
+        assertEquals(first, unchanged);
+        assertNotEquals(first, renamed);
+        assertTrue(first.startsWith("\"") && first.endsWith("\""));
+    }
+
+    private static ProductCategory category(Long id, String name) {
+        ProductCategory category = new ProductCategory(name);
+        category.setId(id);
+        return category;
+    }
 }
@@ -0,0 +1,121 @@
+package com.ju.e_commerce_project.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ju.e_commerce_project.dto.response.ProductExportRecord;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A clear interval of 2 clears the persistence context in the middle of every export below
+@SpringBootTest(properties = "catalog.export.clear-interval=2")
+class ProductExportServiceTest {
+
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ProductCategory category;
+    private User seller;
+    private User otherSeller;
+    private final List<Long> sellerProductIds = new ArrayList<>();
+    private Long otherProductId;
+
+    @BeforeEach
+    void setUp() {
+        category = productCategoryRepository.save(new ProductCategory("Export Category " + System.nanoTime()));
+        seller = saveSeller("export-seller-");
+        otherSeller = saveSeller("export-other-");
+        for (int i = 0; i < 3; i++) {
+            sellerProductIds.add(productRepository.save(new Product("Export Product " + i, i == 0 ? "Line one\nline two" : null,
+                    new BigDecimal("4.25"), category, seller)).getId());
+        }
+        otherProductId = productRepository.save(new Product("Other Product", null, BigDecimal.ONE, category, otherSeller)).getId();
+    }
+
+    @Test
+    void exportBySeller_WritesOneLinePerProductInIdOrder() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = productExportService.exportProducts(seller.getUsername(), output);
+
+        String body = output.toString(StandardCharsets.UTF_8);
+        assertEquals(3, written);
+        assertTrue(body.endsWith("\n"));
+        List<ProductExportRecord> records = parse(body);
+        assertEquals(sellerProductIds, records.stream().map(ProductExportRecord::id).toList());
+
+        ProductExportRecord first = records.get(0);
+        assertEquals("Export Product 0", first.name());
+        assertEquals("Line one\nline two", first.description());
+        assertEquals(0, new BigDecimal("4.25").compareTo(first.price()));
+        assertEquals(category.getId(), first.categoryId());
+        assertEquals(category.getName(), first.categoryName());
+        assertEquals(seller.getUsername(), first.sellerUsername());
+        assertNotNull(first.updatedAt());
+    }
+
+    @Test
+    void exportAll_IncludesEverySeller() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long written = productExportService.exportProducts(null, output);
+
+        List<ProductExportRecord> records = parse(output.toString(StandardCharsets.UTF_8));
+        assertEquals(written, records.size());
+        Set<Long> ids = Set.copyOf(records.stream().map(ProductExportRecord::id).toList());
+        assertTrue(ids.containsAll(sellerProductIds));
+        assertTrue(ids.contains(otherProductId));
+    }
+
+    @Test
+    void exportBySeller_WithoutProducts_WritesNothing() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        assertEquals(0, productExportService.exportProducts("export-nobody", output));
+        assertEquals(0, output.size());
+    }
+
+    private List<ProductExportRecord> parse(String body) throws IOException {
+        List<ProductExportRecord> records = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            records.add(objectMapper.readValue(line, ProductExportRecord.class));
+        }
+        return records;
+    }
+
+    private User saveSeller(String prefix) {
+        return userRepository.save(new User(prefix + System.nanoTime(), "encodedPassword", prefix + System.nanoTime() + "@example.com",
+                "Export", "Seller", "1234567890", "Export Address", UserRole.Seller));
+    }
+}
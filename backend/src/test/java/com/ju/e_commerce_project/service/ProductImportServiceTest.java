@@ -0,0 +1,194 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.response.ProductImportError;
+import com.ju.e_commerce_project.dto.response.ProductImportResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.exception.InvalidInputException;
+import com.ju.e_commerce_project.importer.ProductImportFormat;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import com.ju.e_commerce_project.search.ProductSuggester;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A chunk size of 2 makes every file below span several batches
+@SpringBootTest(properties = {"catalog.import.chunk-size=2", "catalog.import.max-reported-errors=3"})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductCategoryService productCategoryService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductSuggester productSuggester;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductCategory category;
+    private User seller;
+
+    @BeforeEach
+    void setUp() {
+        category = productCategoryRepository.save(new ProductCategory("Import Category " + System.nanoTime()));
+        productCategoryService.reload();
+        seller = userRepository.save(new User("import-seller-" + System.nanoTime(), "encodedPassword", "import" + System.nanoTime() + "@example.com",
+                "Import", "Seller", "1234567890", "Import Address", UserRole.Seller));
+    }
+
+    @Test
+    void importCsv_WritesValidRowsAndReportsTheRest() {
+        long categoryId = category.getId();
+        String csv = "Name,Description,Price,CategoryId,Sku\n"
+                + "Desk Lamp,\"Warm, dimmable light\",19.99," + categoryId + ",L1\n"
+                + ",No name,5.00," + categoryId + ",X1\n"
+                + "\"Quoted \"\"Mug\"\"\",\"Two\nlines\",7.50," + categoryId + ",M1\n"
+                + "Chair,,abc," + categoryId + ",C1\n"
+                + "\n"
+                + "Stool,,15," + categoryId + ",S1\n";
+
+        ProductImportResponse response = productImportService.importProducts(seller.getUsername(), ProductImportFormat.CSV, stream(csv), StandardCharsets.UTF_8);
+
+        assertEquals(3, response.imported());
+        assertEquals(2, response.failed());
+        assertEquals(List.of(
+                new ProductImportError(3, "Name is required"),
+                new ProductImportError(6, "price must be a number")
+        ), response.errors());
+
+        List<ProductResponse> products = productRepository.findResponsesBySeller(seller.getUsername(), 0L, Limit.of(10));
+        assertEquals(List.of("Desk Lamp", "Quoted \"Mug\"", "Stool"), products.stream().map(ProductResponse::name).toList());
+        assertEquals("Warm, dimmable light", products.get(0).description());
+        assertEquals("Two\nlines", products.get(1).description());
+        assertEquals(0, new BigDecimal("15.00").compareTo(products.get(2).price()));
+        assertEquals(category.getName(), products.get(2).categoryName());
+
+        Long lampId = products.get(0).id();
+        assertTrue(productSearchIndex.search("dimmable", 100).items().stream().anyMatch(item -> item.id().equals(lampId)));
+        assertTrue(productSuggester.suggest("desk lamp", 10).stream().map(ProductSuggestion::id).toList().contains(lampId));
+    }
+
+    @Test
+    void importCsv_RejectsRowsTheColumnsCannotHold() {
+        long categoryId = category.getId();
+        String csv = "name,price,categoryId\n"
+                + "Shelf,12.345," + categoryId + "\n"
+                + "Rug,-1," + categoryId + "\n"
+                + "Table,10.00,999999\n"
+                + "Vase,10.00\n"
+                + "Frame,1000000000," + categoryId + "\n";
+
+        ProductImportResponse response = productImportService.importProducts(seller.getUsername(), ProductImportFormat.CSV, stream(csv), StandardCharsets.UTF_8);
+
+        assertEquals(0, response.imported());
+        assertEquals(5, response.failed());
+        assertEquals(List.of(
+                new ProductImportError(2, "Price must have at most 2 decimal places"),
+                new ProductImportError(3, "Price must not be negative"),
+                new ProductImportError(4, "Product category with id 999999 not found")
+        ), response.errors());
+        assertTrue(productRepository.findResponsesBySeller(seller.getUsername(), 0L, Limit.of(10)).isEmpty());
+    }
+
+    @Test
+    void importCsv_WithoutRequiredColumns_IsRejected() {
+        assertThrows(InvalidInputException.class, () -> productImportService.importProducts(
+                seller.getUsername(), ProductImportFormat.CSV, stream("name,description\nLamp,Bright\n"), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importNdjson_SkipsMalformedLines() {
+        long categoryId = category.getId();
+        String ndjson = "{\"name\":\"Kettle\",\"description\":\"Steel\",\"price\":24.50,\"categoryId\":" + categoryId + "}\n"
+                + "{\"name\":\"Toaster\",\n"
+                + "\n"
+                + "{\"name\":\"Blender\",\"categoryId\":" + categoryId + "}\n"
+                + "{\"name\":\"Mixer\",\"price\":\"39.99\",\"categoryId\":" + categoryId + "}\n";
+
+        ProductImportResponse response = productImportService.importProducts(seller.getUsername(), ProductImportFormat.NDJSON, stream(ndjson), StandardCharsets.UTF_8);
+
+        assertEquals(2, response.imported());
+        assertEquals(2, response.failed());
+        assertEquals(2, response.errors().get(0).line());
+        assertTrue(response.errors().get(0).error().startsWith("Malformed JSON"));
+        assertEquals(new ProductImportError(4, "Price is required"), response.errors().get(1));
+        assertEquals(List.of("Kettle", "Mixer"), productRepository.findResponsesBySeller(seller.getUsername(), 0L, Limit.of(10))
+                .stream().map(ProductResponse::name).toList());
+    }
+
+    @Test
+    void importCsv_RowTheDatabaseRejects_FailsAloneInItsChunk() {
+        ProductCategory removed = productCategoryRepository.save(new ProductCategory("Removed Category " + System.nanoTime()));
+        productCategoryService.reload();
+        // Still in the category snapshot, so the row passes validation and fails on the foreign key
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", removed.getId());
+        long categoryId = category.getId();
+        String csv = "name,price,categoryId\n"
+                + "Lamp,10.00," + categoryId + "\n"
+                + "Ghost,10.00," + removed.getId() + "\n"
+                + "Rug,20.00," + categoryId + "\n";
+
+        ProductImportResponse response = productImportService.importProducts(seller.getUsername(), ProductImportFormat.CSV, stream(csv), StandardCharsets.UTF_8);
+
+        assertEquals(2, response.imported());
+        assertEquals(List.of(new ProductImportError(3, "Could not be saved")), response.errors());
+        assertEquals(List.of("Lamp", "Rug"), productRepository.findResponsesBySeller(seller.getUsername(), 0L, Limit.of(10))
+                .stream().map(ProductResponse::name).toList());
+    }
+
+    @Test
+    void import_OverlongLines_AreSkippedWithoutReadingThemWhole() {
+        long categoryId = category.getId();
+        String overlong = "x".repeat((1 << 20) + 1);
+        String csv = "name,price,categoryId\n"
+                + overlong + ",1.00," + categoryId + "\r\n"
+                + "Lamp,10.00," + categoryId + "\n";
+        String ndjson = "{\"name\":\"" + overlong + "\"}\n"
+                + "{\"name\":\"Kettle\",\"price\":24.50,\"categoryId\":" + categoryId + "}\n";
+
+        ProductImportResponse fromCsv = productImportService.importProducts(seller.getUsername(), ProductImportFormat.CSV, stream(csv), StandardCharsets.UTF_8);
+        ProductImportResponse fromNdjson = productImportService.importProducts(seller.getUsername(), ProductImportFormat.NDJSON, stream(ndjson), StandardCharsets.UTF_8);
+
+        assertEquals(1, fromCsv.imported());
+        assertEquals(List.of(new ProductImportError(2, "Record is longer than 1048576 characters")), fromCsv.errors());
+        assertEquals(1, fromNdjson.imported());
+        assertEquals(List.of(new ProductImportError(1, "Line is longer than 1048576 characters")), fromNdjson.errors());
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,81 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import com.ju.e_commerce_project.model.Product;
+import com.ju.e_commerce_project.model.ProductCategory;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.ProductCategoryRepository;
+import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProductListingQueryTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductCategoryRepository productCategoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private ProductCategory category;
+
+    @BeforeEach
+    void setUp() {
+        category = productCategoryRepository.save(new ProductCategory("Listing Category " + System.nanoTime()));
+        User seller = userRepository.save(new User("listing-seller-" + System.nanoTime(), "encodedPassword", "listing" + System.nanoTime() + "@example.com",
+                "Listing", "Seller", "1234567890", "Listing Address", UserRole.Seller));
+        for (int i = 0; i < 5; i++) {
+            productRepository.save(new Product("Product " + i, "Description " + i, new BigDecimal("10.00"), category, seller));
+        }
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void categoryListing_IsOneStatementWithoutEntityLoads() {
+        ProductPageResponse page = productService.getProductsByCategory(category.getId(), null, 3, true);
+
+        assertEquals(3, page.items().size());
+        assertEquals("Description 0", page.items().get(0).description());
+        assertEquals(category.getName(), page.items().get(0).categoryName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void categoryListingWithoutDescription_LeavesDescriptionOut() {
+        ProductPageResponse firstPage = productService.getProductsByCategory(category.getId(), null, 3, false);
+        ProductPageResponse secondPage = productService.getProductsByCategory(category.getId(), firstPage.next(), 3, false);
+
+        assertNull(firstPage.items().get(0).description());
+        assertNotNull(firstPage.next());
+        assertEquals(2, secondPage.items().size());
+        assertNull(secondPage.next());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -1,17 +1,28 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.ProductListingCache;
 import com.ju.e_commerce_project.dto.request.AddProductRequest;
+import com.ju.e_commerce_project.dto.request.UpdateProductRequest;
+import com.ju.e_commerce_project.dto.response.ProductBrowseResponse;
+import com.ju.e_commerce_project.dto.response.ProductPageResponse;
+import com.ju.e_commerce_project.dto.response.ProductResponse;
+import com.ju.e_commerce_project.dto.response.ProductSuggestion;
+import com.ju.e_commerce_project.exception.InvalidInputException;
 import com.ju.e_commerce_project.exception.ProductCategoryNotFoundException;
 import com.ju.e_commerce_project.model.Product;
 import com.ju.e_commerce_project.model.ProductCategory;
 import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.repository.OrderItemRepository;
 import com.ju.e_commerce_project.repository.ProductRepository;
+import com.ju.e_commerce_project.search.ProductDocument;
+import com.ju.e_commerce_project.search.ProductSearchIndex;
+import com.ju.e_commerce_project.search.ProductSuggester;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,9 +31,16 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +49,9 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
     @Mock
     private AuthService authService;
 
@@ -46,11 +67,18 @@ class ProductServiceTest {
     @Mock
     private UserDetails userDetails;
 
-    @InjectMocks
+    private ProductListingCache productListingCache;
+    private ProductSearchIndex productSearchIndex;
+    private ProductSuggester productSuggester;
     private ProductService productService;
 
     @BeforeEach
     void setUp() {
+        productListingCache = new ProductListingCache(100, 60);
+        productSearchIndex = new ProductSearchIndex(productRepository);
+        productSuggester = new ProductSuggester(productRepository, orderItemRepository);
+        productService = new ProductService(productRepository, productCategoryService, authService, productListingCache,
+                productSearchIndex, productSuggester, 20, 100);
         SecurityContextHolder.setContext(securityContext);
     }
 
@@ -80,6 +108,8 @@ class ProductServiceTest {
         assertEquals(savedProduct.getPrice(), result.getPrice());
         assertEquals(savedProduct.getCategory(), result.getCategory());
         assertEquals(savedProduct.getSeller(), result.getSeller());
+        assertEquals(List.of(1L), productService.searchProducts("test", null).items().stream().map(ProductResponse::id).toList());
+        assertEquals(List.of(new ProductSuggestion(1L, "Test Product")), productService.suggestProducts("test p", null));
     }
 
     @Test
@@ -97,34 +127,163 @@ class ProductServiceTest {
     }
 
     @Test
-    void getProductsByCategory_ExistingCategory_ReturnsListOfProducts() {
+    void getProductsByCategory_MoreRowsThanPageSize_ReturnsPageWithNextCursor() {
         Long categoryId = 1L;
-        List<Product> expectedProducts = new ArrayList<>();
-        ProductCategory category = new ProductCategory("Test Category");
-        category.setId(categoryId);
-        User user = new User();
-        user.setEmail("test@example.com");
-        expectedProducts.add(new Product("Product 1", "Description 1", new BigDecimal("10.00"), category, user));
-        expectedProducts.add(new Product("Product 2", "Description 2", new BigDecimal("20.00"), category, user));
+        List<ProductResponse> rows = products(1L, 2L, 3L);
+        when(productRepository.findResponsesByCategory(categoryId, 0L, Limit.of(3))).thenReturn(rows);
+
+        ProductPageResponse page = productService.getProductsByCategory(categoryId, null, 2, true);
+
+        assertEquals(2, page.items().size());
+        assertEquals(2L, page.items().get(1).id());
+        assertNotNull(page.next());
 
-        when(productRepository.findByCategoryId(categoryId)).thenReturn(expectedProducts);
+        when(productRepository.findResponsesByCategory(categoryId, 2L, Limit.of(3))).thenReturn(rows.subList(2, 3));
 
-        List<Product> actualProducts = productService.getProductsByCategory(categoryId);
+        ProductPageResponse nextPage = productService.getProductsByCategory(categoryId, page.next(), 2, true);
 
-        assertNotNull(actualProducts);
-        assertEquals(2, actualProducts.size());
-        assertEquals(expectedProducts.get(0).getName(), actualProducts.get(0).getName());
-        assertEquals(expectedProducts.get(1).getName(), actualProducts.get(1).getName());
+        assertEquals(1, nextPage.items().size());
+        assertNull(nextPage.next());
     }
 
     @Test
-    void getProductsByCategory_NonExistingCategory_ReturnsEmptyList() {
+    void getProductsByCategory_RepeatedRead_IsServedFromCache() {
+        when(productRepository.findResponsesByCategory(1L, 0L, Limit.of(21))).thenReturn(products(1L, 2L));
+
+        ProductPageResponse first = productService.getProductsByCategory(1L, null, null, true);
+        ProductPageResponse second = productService.getProductsByCategory(1L, "", 20, true);
+
+        assertSame(first, second);
+        verify(productRepository, times(1)).findResponsesByCategory(1L, 0L, Limit.of(21));
+        assertEquals(1, productListingCache.stats().hits());
+    }
+
+    @Test
+    void updateProduct_MovedToAnotherCategory_InvalidatesBothCategories() {
+        ProductCategory oldCategory = new ProductCategory("Old");
+        oldCategory.setId(1L);
+        ProductCategory newCategory = new ProductCategory("New");
+        newCategory.setId(2L);
+        User seller = new User();
+        seller.setUsername("seller");
+        Product product = new Product("Product", "Description", new BigDecimal("10.00"), oldCategory, seller);
+        product.setId(5L);
+        when(productRepository.findById(5L)).thenReturn(Optional.of(product));
+        when(productCategoryService.findCategoryById(2L)).thenReturn(newCategory);
+        when(productRepository.save(product)).thenReturn(product);
+        when(productRepository.findResponsesByCategory(anyLong(), eq(0L), eq(Limit.of(21)))).thenReturn(products(5L));
+        productService.getProductsByCategory(1L, null, null, true);
+        productService.getProductsByCategory(2L, null, null, true);
+        productService.getProductsByCategory(3L, null, null, true);
+
+        productService.updateProduct(5L, new UpdateProductRequest("Product", "Description", new BigDecimal("12.00"), 2L), "seller");
+        productService.getProductsByCategory(1L, null, null, true);
+        productService.getProductsByCategory(2L, null, null, true);
+        productService.getProductsByCategory(3L, null, null, true);
+
+        verify(productRepository, times(2)).findResponsesByCategory(1L, 0L, Limit.of(21));
+        verify(productRepository, times(2)).findResponsesByCategory(2L, 0L, Limit.of(21));
+        verify(productRepository, times(1)).findResponsesByCategory(3L, 0L, Limit.of(21));
+    }
+
+    @Test
+    void deleteProduct_RemovesProductFromSearchIndexAndSuggestions() {
+        ProductCategory category = new ProductCategory("Electronics");
+        category.setId(1L);
+        User seller = new User();
+        seller.setUsername("seller");
+        Product product = new Product("Mechanical Keyboard", "Hot-swappable switches", new BigDecimal("80.00"), category, seller);
+        product.setId(7L);
+        productSearchIndex.index(ProductDocument.of(product));
+        when(productRepository.findById(7L)).thenReturn(Optional.of(product));
+
+        assertEquals(1, productService.searchProducts("keyboard", null).total());
+
+        productSuggester.put(7L, product.getName());
+
+        productService.deleteProduct(7L, "seller");
+
+        assertEquals(0, productService.searchProducts("keyboard", null).total());
+        assertTrue(productService.suggestProducts("mech", null).isEmpty());
+    }
+
+    @Test
+    void browseProducts_ReturnsCursorToTheNextPage() {
+        ProductCategory category = new ProductCategory("Books");
+        category.setId(2L);
+        User seller = new User();
+        seller.setUsername("seller");
+        for (long id = 1; id <= 3; id++) {
+            Product product = new Product("Book " + id, null, new BigDecimal("10.00"), category, seller);
+            product.setId(id);
+            productSearchIndex.index(ProductDocument.of(product));
+        }
+
+        ProductBrowseResponse first = productService.browseProducts(null, Set.of(2L), null, null, null, "newest", null, 2);
+        ProductBrowseResponse second = productService.browseProducts(null, Set.of(2L), null, null, null, "newest", first.next(), 2);
+
+        assertEquals(List.of(3L, 2L), first.items().stream().map(ProductResponse::id).toList());
+        assertEquals(List.of(1L), second.items().stream().map(ProductResponse::id).toList());
+        assertNull(second.next());
+    }
+
+    @Test
+    void browseProducts_InvalidParameters_ThrowInvalidInputException() {
+        assertThrows(InvalidInputException.class, () -> productService.browseProducts(
+                null, null, new BigDecimal("20"), new BigDecimal("10"), null, null, null, null));
+        assertThrows(InvalidInputException.class, () -> productService.browseProducts(
+                null, null, null, null, null, "cheapest", null, null));
+    }
+
+    @Test
+    void getProductsByCategory_NonExistingCategory_ReturnsEmptyPage() {
         Long categoryId = 99L;
-        when(productRepository.findByCategoryId(categoryId)).thenReturn(new ArrayList<>());
+        when(productRepository.findResponsesByCategory(categoryId, 0L, Limit.of(21))).thenReturn(new ArrayList<>());
+
+        ProductPageResponse page = productService.getProductsByCategory(categoryId, null, null, true);
+
+        assertTrue(page.items().isEmpty());
+        assertNull(page.next());
+    }
+
+    @Test
+    void getProductsByCategory_WithoutDescription_UsesSummaryQuery() {
+        when(productRepository.findSummariesByCategory(1L, 0L, Limit.of(21))).thenReturn(new ArrayList<>());
+
+        productService.getProductsByCategory(1L, null, null, false);
+
+        verify(productRepository, never()).findResponsesByCategory(any(), any(), any());
+    }
+
+    @Test
+    void getProductsByCategory_PageSizeAboveMaximum_IsCapped() {
+        when(productRepository.findResponsesByCategory(1L, 0L, Limit.of(101))).thenReturn(new ArrayList<>());
+
+        productService.getProductsByCategory(1L, null, 10_000, true);
 
-        List<Product> actualProducts = productService.getProductsByCategory(categoryId);
+        verify(productRepository).findResponsesByCategory(1L, 0L, Limit.of(101));
+    }
+
+    @Test
+    void getProductsByCategory_MalformedCursor_ThrowsInvalidInputException() {
+        assertThrows(InvalidInputException.class, () -> productService.getProductsByCategory(1L, "not a cursor!", null, true));
+    }
+
+    @Test
+    void getProductsBySeller_UsesSellerKeyset() {
+        when(productRepository.findResponsesBySeller("seller", 0L, Limit.of(21))).thenReturn(products(5L));
+
+        ProductPageResponse page = productService.getProductsBySeller("seller", null, null, true);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.next());
+    }
 
-        assertNotNull(actualProducts);
-        assertTrue(actualProducts.isEmpty());
+    private static List<ProductResponse> products(Long... ids) {
+        List<ProductResponse> products = new ArrayList<>();
+        for (Long id : ids) {
+            products.add(new ProductResponse(id, "Product " + id, "Description " + id, new BigDecimal("10.00"), "Test Category"));
+        }
+        return products;
     }
-}
\ No newline at end of file
+}
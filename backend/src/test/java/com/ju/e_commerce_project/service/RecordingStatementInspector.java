@@ -0,0 +1,31 @@
+package com.ju.e_commerce_project.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Hibernate prepares a batched statement once per batch, so each recorded insert is one round trip
+public class RecordingStatementInspector implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql.toLowerCase(Locale.ROOT));
+        return sql;
+    }
+
+    static void clear() {
+        statements.clear();
+    }
+
+    static long count(String prefix) {
+        return statements.stream().filter(sql -> sql.startsWith(prefix)).count();
+    }
+
+    static long matching(String fragment) {
+        return statements.stream().filter(sql -> sql.contains(fragment)).count();
+    }
+}
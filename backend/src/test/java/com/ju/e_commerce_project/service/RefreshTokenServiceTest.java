@@ -0,0 +1,92 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.exception.InvalidRefreshTokenException;
+import com.ju.e_commerce_project.model.RefreshToken;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private RefreshTokenService refreshTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, 14);
+        user = new User("testuser", "encodedPassword", "test@example.com", "Test", "User", "1234567890", "Test Address", UserRole.Customer);
+    }
+
+    @Test
+    void createRefreshToken_StoresOnlyTheHash() {
+        String token = refreshTokenService.createRefreshToken(user);
+
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(captor.capture());
+        assertNotEquals(token, captor.getValue().getTokenHash());
+        assertEquals(64, captor.getValue().getTokenHash().length());
+        assertTrue(captor.getValue().getExpiresAt().after(new Date()));
+    }
+
+    @Test
+    void rotate_ValidToken_ConsumesItAndIssuesANewOne() {
+        RefreshToken stored = storedToken(new Date(System.currentTimeMillis() + 60_000));
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteTokenById(1L)).thenReturn(1);
+
+        RefreshTokenService.RotatedRefreshToken rotated = refreshTokenService.rotate("refreshToken");
+
+        assertSame(user, rotated.user());
+        assertNotEquals("refreshToken", rotated.refreshToken());
+        verify(refreshTokenRepository).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_TokenAlreadyConsumed_ThrowsInvalidRefreshTokenException() {
+        RefreshToken stored = storedToken(new Date(System.currentTimeMillis() + 60_000));
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.deleteTokenById(1L)).thenReturn(0);
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refreshToken"));
+        verify(refreshTokenRepository, never()).save(any(RefreshToken.class));
+    }
+
+    @Test
+    void rotate_ExpiredToken_ThrowsInvalidRefreshTokenException() {
+        RefreshToken stored = storedToken(new Date(System.currentTimeMillis() - 60_000));
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("refreshToken"));
+    }
+
+    @Test
+    void rotate_UnknownToken_ThrowsInvalidRefreshTokenException() {
+        when(refreshTokenRepository.findByTokenHashWithUser(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate("unknown"));
+    }
+
+    private RefreshToken storedToken(Date expiresAt) {
+        RefreshToken refreshToken = new RefreshToken(user, "hash", expiresAt);
+        refreshToken.setId(1L);
+        return refreshToken;
+    }
+}
@@ -0,0 +1,92 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.model.RevokedToken;
+import com.ju.e_commerce_project.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository, 1000, 0.01, 60_000);
+    }
+
+    @Test
+    void isRevoked_UnknownJti_AnsweredWithoutDatabase() {
+        when(revokedTokenRepository.findActiveJtis(any(Date.class))).thenReturn(List.of());
+        tokenRevocationService.loadRevokedTokens();
+
+        assertFalse(tokenRevocationService.isRevoked("not-revoked"));
+        assertFalse(tokenRevocationService.isRevoked(null));
+        verify(revokedTokenRepository, never()).existsById(anyString());
+    }
+
+    @Test
+    void revoke_ThenIsRevoked_ConfirmsAgainstDatabase() {
+        when(revokedTokenRepository.findActiveJtis(any(Date.class))).thenReturn(List.of());
+        when(revokedTokenRepository.existsById("jti")).thenReturn(true);
+        tokenRevocationService.loadRevokedTokens();
+        Claims claims = Jwts.claims().id("jti").expiration(new Date(System.currentTimeMillis() + 60_000)).build();
+
+        tokenRevocationService.revoke(claims);
+
+        assertTrue(tokenRevocationService.isRevoked("jti"));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void loadRevokedTokens_RestoresFilterFromTable() {
+        when(revokedTokenRepository.findActiveJtis(any(Date.class))).thenReturn(List.of("persisted"));
+        when(revokedTokenRepository.existsById("persisted")).thenReturn(true);
+
+        tokenRevocationService.loadRevokedTokens();
+
+        assertTrue(tokenRevocationService.isRevoked("persisted"));
+    }
+
+    @Test
+    void refresh_AddsRevocationsMadeByOtherInstances() {
+        when(revokedTokenRepository.findActiveJtis(any(Date.class))).thenReturn(List.of());
+        tokenRevocationService.loadRevokedTokens();
+        when(revokedTokenRepository.findActiveJtisRevokedSince(any(Date.class), any(Date.class))).thenReturn(List.of("elsewhere"));
+        when(revokedTokenRepository.existsById("elsewhere")).thenReturn(true);
+
+        assertFalse(tokenRevocationService.isRevoked("elsewhere"));
+        tokenRevocationService.refresh();
+
+        assertTrue(tokenRevocationService.isRevoked("elsewhere"));
+    }
+
+    @Test
+    void purgeExpired_RemovesRowsAndRebuildsFilter() {
+        when(revokedTokenRepository.findActiveJtis(any(Date.class))).thenReturn(List.of("expired"), List.of());
+        tokenRevocationService.loadRevokedTokens();
+        when(revokedTokenRepository.deleteExpired(any(Date.class))).thenReturn(1);
+
+        tokenRevocationService.purgeExpired();
+
+        assertFalse(tokenRevocationService.isRevoked("expired"));
+        verify(revokedTokenRepository, never()).existsById(anyString());
+    }
+}
@@ -0,0 +1,82 @@
+package com.ju.e_commerce_project.service;
+
+import com.ju.e_commerce_project.exception.InvalidRefreshTokenException;
+import com.ju.e_commerce_project.exception.ResourceNotFoundException;
+import com.ju.e_commerce_project.model.User;
+import com.ju.e_commerce_project.model.UserRole;
+import com.ju.e_commerce_project.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TokenVersionServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User("version-user-" + System.nanoTime(), "encodedPassword", "version-" + System.nanoTime() + "@example.com",
+                "Version", "User", "1234567890", "Version Address", UserRole.Customer));
+    }
+
+    @Test
+    void revokeAllTokens_RejectsOutstandingAccessAndRefreshTokens() {
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+        assertTrue(tokenVersionService.isCurrent(user.getUserId(), user.getTokenVersion()));
+
+        userService.revokeAllTokens(user.getUsername());
+
+        assertFalse(tokenVersionService.isCurrent(user.getUserId(), user.getTokenVersion()));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ?", Integer.class, user.getUserId()));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(refreshToken));
+    }
+
+    @Test
+    void revokeAllTokens_SavingAUserReadBeforehand_DoesNotUndoIt() {
+        // What a profile update or a password rehash racing with the revocation does
+        User stale = userRepository.findById(user.getUserId()).orElseThrow();
+        userService.revokeAllTokens(user.getUsername());
+        stale.setFirstName("Stale");
+        userRepository.save(stale);
+
+        assertFalse(tokenVersionService.isCurrent(user.getUserId(), user.getTokenVersion()));
+        assertEquals(user.getTokenVersion() + 1, userRepository.findTokenVersionByUserId(user.getUserId()).orElseThrow());
+    }
+
+    @Test
+    void rotate_TokenIssuedBeforeTheVersionMovedOn_IsRejected() {
+        // What a refresh racing with the revocation leaves behind: a token at the old version
+        String refreshToken = refreshTokenService.createRefreshToken(user);
+        jdbcTemplate.update("UPDATE users SET token_version = token_version + 1 WHERE user_id = ?", user.getUserId());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.rotate(refreshToken));
+    }
+
+    @Test
+    void revokeAllTokens_UnknownUser_ThrowsResourceNotFoundException() {
+        assertThrows(ResourceNotFoundException.class, () -> userService.revokeAllTokens("no-such-user-" + System.nanoTime()));
+    }
+}
@@ -1,5 +1,6 @@
 package com.ju.e_commerce_project.service;
 
+import com.ju.e_commerce_project.cache.UserDetailsCache;
 import com.ju.e_commerce_project.model.User;
 import com.ju.e_commerce_project.model.UserRole;
 import com.ju.e_commerce_project.repository.UserRepository;
@@ -7,7 +8,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -16,6 +19,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +29,9 @@ class UserDetailsServiceImpTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserDetailsCache userDetailsCache = new UserDetailsCache(100, 60);
+
     @InjectMocks
     private UserDetailsServiceImp userDetailsService;
 
@@ -46,6 +54,43 @@ class UserDetailsServiceImpTest {
         assertEquals(expectedAuthorities, userDetails.getAuthorities().stream().toList());
     }
 
+    @Test
+    void loadUserByUsername_RepeatedLookup_ServedFromCache() {
+        String username = "testuser";
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.Customer);
+
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+        UserDetails first = userDetailsService.loadUserByUsername(username);
+        ((CredentialsContainer) first).eraseCredentials();
+        UserDetails second = userDetailsService.loadUserByUsername(username);
+
+        assertEquals("password", second.getPassword());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        verify(userRepository, times(1)).findByUsername(username);
+        assertEquals(1, userDetailsCache.stats().hits());
+    }
+
+    @Test
+    void loadUserByUsername_AfterInvalidate_ReloadsUser() {
+        String username = "testuser";
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setRole(UserRole.Customer);
+
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+
+        userDetailsService.loadUserByUsername(username);
+        userDetailsCache.invalidate(username);
+        userDetailsService.loadUserByUsername(username);
+
+        verify(userRepository, times(2)).findByUsername(username);
+    }
+
     @Test
     void loadUserByUsername_NonExistingUsername_ThrowsUsernameNotFoundException() {
         String username = "nonexistentuser";
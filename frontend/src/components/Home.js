@@ -15,6 +15,8 @@ function Home() {
     const [selectedCategoryId, setSelectedCategoryId] = useState(null);
     const [loadingProducts, setLoadingProducts] = useState(false);
     const [productError, setProductError] = useState(null);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
 
     // Add state for Add to Cart success/error messages
     const [addToCartMessage, setAddToCartMessage] = useState(null);
@@ -56,12 +58,14 @@ function Home() {
                 setLoadingProducts(true);
                 setProductError(null);
                 setProducts([]);
+                setNextCursor(null);
                 setAddToCartMessage(null);
                 setAddToCartError(null);
 
                 try {
                     const response = await axios.get(`/api/products/category/${selectedCategoryId}`);
-                    setProducts(response.data);
+                    setProducts(response.data.items);
+                    setNextCursor(response.data.next);
                 } catch (err) {
                     console.error(`Failed to fetch products for category ${selectedCategoryId}`, err);
                     setProductError('Could not load products for this category. Please try again.');
@@ -77,6 +81,23 @@ function Home() {
         }
     }, [selectedCategoryId, loadingCategories, categories]);
 
+    // Products are served a page at a time; the cursor from the last page fetches the next one
+    const handleLoadMore = async () => {
+        setLoadingMore(true);
+        try {
+            const response = await axios.get(`/api/products/category/${selectedCategoryId}`, {
+                params: { cursor: nextCursor }
+            });
+            setProducts(previous => [...previous, ...response.data.items]);
+            setNextCursor(response.data.next);
+        } catch (err) {
+            console.error(`Failed to fetch more products for category ${selectedCategoryId}`, err);
+            setProductError('Could not load more products. Please try again.');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const handleCategorySelect = (categoryId) => {
         if (categoryId !== selectedCategoryId) {
             setSelectedCategoryId(categoryId);
@@ -136,6 +157,11 @@ function Home() {
                         onAddToCart={userRole === 'Customer' ? handleAddToCart : null}
                     />
                  )}
+                 {!loadingProducts && nextCursor && (
+                     <button className="load-more-button" onClick={handleLoadMore} disabled={loadingMore}>
+                         {loadingMore ? 'Loading...' : 'Load more'}
+                     </button>
+                 )}
                  {!loadingCategories && selectedCategoryId === null && !categoryError && categories.length > 0 && (
                      <p className="product-list-message">Select a category to view products.</p>
                  )}
@@ -77,7 +77,7 @@ describe('Home Component', () => {
                 return Promise.resolve({ data: mockCategories });
             }
             if (url === `/api/products/category/${mockCategories[0].id}`) {
-                return Promise.resolve({ data: mockProductsCategory1 });
+                return Promise.resolve({ data: { items: mockProductsCategory1, next: null } });
             }
             return Promise.reject(new Error('not found'));
         });
@@ -103,10 +103,10 @@ describe('Home Component', () => {
                 return Promise.resolve({ data: mockCategories });
             }
             if (url === `/api/products/category/${mockCategories[0].id}`) {
-                return Promise.resolve({ data: mockProductsCategory1 });
+                return Promise.resolve({ data: { items: mockProductsCategory1, next: null } });
             }
              if (url === `/api/products/category/${mockCategories[1].id}`) {
-                return Promise.resolve({ data: mockProductsCategory2 });
+                return Promise.resolve({ data: { items: mockProductsCategory2, next: null } });
             }
             return Promise.reject(new Error('not found'));
         });
@@ -184,7 +184,7 @@ describe('Home Component', () => {
                 return Promise.resolve({ data: mockCategories });
             }
             if (url === `/api/products/category/${mockCategories[0].id}`) {
-                return Promise.resolve({ data: [] });
+                return Promise.resolve({ data: { items: [], next: null } });
             }
             return Promise.reject(new Error('not found'));
         });
@@ -226,7 +226,7 @@ describe('Home Component', () => {
                 return Promise.resolve({ data: mockCategories });
             }
             if (url === `/api/products/category/${mockCategories[0].id}`) {
-                return Promise.resolve({ data: mockProductsCategory1 });
+                return Promise.resolve({ data: { items: mockProductsCategory1, next: null } });
             }
              if (url === `/api/products/category/${mockCategories[1].id}`) {
                 return new Promise(() => {});
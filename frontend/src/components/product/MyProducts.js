@@ -10,6 +10,8 @@ function MyProducts() {
     const [error, setError] = useState('');
     const [deleteError, setDeleteError] = useState('');
     const [deletingProductId, setDeletingProductId] = useState(null);
+    const [nextCursor, setNextCursor] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const navigate = useNavigate();
 
     const userRole = localStorage.getItem('userRole');
@@ -32,7 +34,8 @@ function MyProducts() {
                         Authorization: `Bearer ${token}`
                     }
                 });
-                setMyProducts(response.data);
+                setMyProducts(response.data.items);
+                setNextCursor(response.data.next);
             } catch (err) {
                 console.error("Error fetching seller's products:", err);
                 if (err.response) {
@@ -90,6 +93,26 @@ function MyProducts() {
         }
      };
 
+     const handleLoadMore = async () => {
+        const token = localStorage.getItem('accessToken');
+        setLoadingMore(true);
+        try {
+            const response = await axios.get("/api/products/my-products", {
+                headers: {
+                    Authorization: `Bearer ${token}`
+                },
+                params: { cursor: nextCursor }
+            });
+            setMyProducts(prevProducts => [...prevProducts, ...response.data.items]);
+            setNextCursor(response.data.next);
+        } catch (err) {
+            console.error("Error fetching more of the seller's products:", err);
+            setError('Failed to fetch more of your products.');
+        } finally {
+            setLoadingMore(false);
+        }
+     };
+
      const handleProductEdit = (productToEdit) => {
         navigate(`/my-products/edit/${productToEdit.id}`, { state: { product: productToEdit } });
      };
@@ -113,6 +136,12 @@ function MyProducts() {
                 onProductDelete={handleProductDelete}
                 onProductEdit={handleProductEdit}
             />
+
+            {!loading && nextCursor && (
+                <button className="load-more-button" onClick={handleLoadMore} disabled={loadingMore}>
+                    {loadingMore ? 'Loading...' : 'Load more'}
+                </button>
+            )}
         </div>
     );
 }